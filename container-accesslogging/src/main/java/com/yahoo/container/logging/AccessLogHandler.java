@@ -3,6 +3,9 @@ package com.yahoo.container.logging;
 
 import com.yahoo.container.core.AccessLogConfig;
 
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
 /**
@@ -29,6 +32,15 @@ class AccessLogHandler {
         access.addHandler(this.logFileHandler);
     }
 
+    /**
+     * Logs the message returned by the given supplier. The message is created on the thread writing
+     * the log file, not the calling thread, so the supplier must not depend on state which may change
+     * after this is called.
+     */
+    void log(Supplier<String> message) {
+        access.log(new DeferredLogRecord(message));
+    }
+
     private void createSymlink(AccessLogConfig.FileHandler config, LogFileHandler handler) {
         if (!config.symlink().isEmpty())
             handler.setSymlinkName(config.symlink());
@@ -45,4 +57,26 @@ class AccessLogHandler {
     void rotateNow() {
         logFileHandler.rotateNow();
     }
+
+    /** A log record which creates its message when it is first requested */
+    private static class DeferredLogRecord extends LogRecord {
+
+        private Supplier<String> messageSupplier;
+
+        DeferredLogRecord(Supplier<String> messageSupplier) {
+            super(Level.INFO, null);
+            this.messageSupplier = messageSupplier;
+        }
+
+        @Override
+        public synchronized String getMessage() {
+            if (messageSupplier != null) {
+                setMessage(messageSupplier.get());
+                messageSupplier = null;
+            }
+            return super.getMessage();
+        }
+
+    }
+
 }
@@ -33,15 +33,14 @@ public class JSONFormatter {
     private static final String COVERAGE_DEGRADE_ADAPTIVE_TIMEOUT = "adaptive-timeout";
     private static final String COVERAGE_DEGRADED_NON_IDEAL_STATE = "non-ideal-state";
 
+    private static final JsonFactory generatorFactory = new JsonFactory(new ObjectMapper());
+
     private AccessLogEntry accessLogEntry;
-    private final JsonFactory generatorFactory;
 
     private static Logger logger = Logger.getLogger(JSONFormatter.class.getName());
 
     public JSONFormatter(final AccessLogEntry entry) {
         accessLogEntry = entry;
-        generatorFactory = new JsonFactory();
-        generatorFactory.setCodec(new ObjectMapper());
     }
 
     /**
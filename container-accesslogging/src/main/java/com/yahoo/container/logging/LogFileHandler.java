@@ -14,10 +14,13 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
@@ -43,7 +46,10 @@ public class LogFileHandler extends StreamHandler {
     private FileOutputStream currentOutputStream = null;
     private String fileName;
     private String symlinkName = null;
+    private static final int maxBatchSize = 1000;
     private ArrayBlockingQueue<LogRecord> logQueue = new ArrayBlockingQueue<>(100000);
+    private final List<LogRecord> batch = new ArrayList<>(maxBatchSize);
+    private final AtomicLong droppedRecords = new AtomicLong(0);
     private LogRecord rotateCmd = new LogRecord(Level.SEVERE, "rotateNow");
     private ExecutorService executor = Executors.newCachedThreadPool(ThreadFactoryFactory.getDaemonThreadFactory("logfilehandler.compression"));
     private final NativeIO nativeIO = new NativeIO();
@@ -52,6 +58,7 @@ public class LogFileHandler extends StreamHandler {
     static private class LogThread extends Thread {
         LogFileHandler logFileHandler;
         long lastFlush = 0;
+        long lastDropWarning = 0;
         LogThread(LogFileHandler logFile) {
             super("Logger");
             setDaemon(true);
@@ -73,16 +80,24 @@ public class LogFileHandler extends StreamHandler {
             while (!isInterrupted()) {
                 LogRecord r = logFileHandler.logQueue.poll(100, TimeUnit.MILLISECONDS);
                 if (r != null) {
-                    if (r == logFileHandler.rotateCmd) {
-                        logFileHandler.internalRotateNow();
+                    if (logFileHandler.publishBatch(r)) {
                         lastFlush = System.nanoTime();
-                    } else {
-                        logFileHandler.internalPublish(r);
                     }
                     flushIfOld(3, TimeUnit.SECONDS);
                 } else {
                     flushIfOld(100, TimeUnit.MILLISECONDS);
                 }
+                warnIfDropped(10, TimeUnit.SECONDS);
+            }
+        }
+
+        private void warnIfDropped(long interval, TimeUnit unit) {
+            long now = System.nanoTime();
+            if (TimeUnit.NANOSECONDS.toMillis(now - lastDropWarning) < unit.toMillis(interval)) return;
+            long dropped = logFileHandler.droppedRecords.getAndSet(0);
+            if (dropped > 0) {
+                logger.warning("Dropped " + dropped + " log records as the log queue was full");
+                lastDropWarning = now;
             }
         }
 
@@ -109,17 +124,40 @@ public class LogFileHandler extends StreamHandler {
     }
 
     /**
-     * Sends logrecord to file, first rotating file if needed.
+     * Queues a logrecord for writing to file, first rotating file if needed.
+     * This never blocks: If the queue is full the record is dropped and counted.
      *
      * @param r logrecord to publish
      */
     public void publish(LogRecord r) {
-        try {
-            logQueue.put(r);
-        } catch (InterruptedException e) {
+        if ( ! logQueue.offer(r)) {
+            droppedRecords.incrementAndGet();
         }
     }
 
+    /**
+     * Writes the given record and all other currently queued records, up to a max batch size.
+     *
+     * @return whether the file was rotated
+     */
+    private synchronized boolean publishBatch(LogRecord first) {
+        boolean rotated = false;
+        batch.add(first);
+        logQueue.drainTo(batch, maxBatchSize - 1);
+        for (LogRecord r : batch) {
+            if (r == rotateCmd) {
+                internalRotateNow();
+                rotated = true;
+            } else if (r instanceof DrainCmd) {
+                ((DrainCmd)r).drained.countDown();
+            } else {
+                internalPublish(r);
+            }
+        }
+        batch.clear();
+        return rotated;
+    }
+
     @Override
     public synchronized void flush() {
         super.flush();
@@ -200,12 +238,18 @@ public class LogFileHandler extends StreamHandler {
         return next;
     }
 
+    /** Returns the number of records dropped because the queue was full, since this was last logged */
+    long droppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /** Waits until all records published before this is called are written, and flushes them */
     void waitDrained() {
-        while(! logQueue.isEmpty()) {
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-            }
+        DrainCmd drainCmd = new DrainCmd();
+        try {
+            logQueue.put(drainCmd);
+            drainCmd.drained.await();
+        } catch (InterruptedException e) {
         }
         flush();
     }
@@ -225,7 +269,10 @@ public class LogFileHandler extends StreamHandler {
      * Force file rotation now, independent of schedule.
      */
     void rotateNow () {
-        publish(rotateCmd);
+        try {
+            logQueue.put(rotateCmd);
+        } catch (InterruptedException e) {
+        }
     }
 
     // Throw InterruptedException upwards rather than relying on isInterrupted to stop the thread as
@@ -400,4 +447,15 @@ public class LogFileHandler extends StreamHandler {
         return fileName;
     }
 
+    /** A command which signals when all the records queued before it are taken by the log thread */
+    private static class DrainCmd extends LogRecord {
+
+        private final CountDownLatch drained = new CountDownLatch(1);
+
+        DrainCmd() {
+            super(Level.INFO, "drain");
+        }
+
+    }
+
 }
@@ -1,13 +1,18 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.container.logging;
 
+import com.yahoo.container.core.AccessLogConfig;
 import com.yahoo.io.IOUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -28,6 +33,9 @@ import static org.junit.Assert.assertTrue;
 // These tests take too long, and are not cleaning up properly. See how this should be done in YApacheLogTestCase
 public class LogFileHandlerTestCase {
 
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
     /**
      * The scenario
      */
@@ -210,4 +218,81 @@ public class LogFileHandlerTestCase {
         IOUtils.recursiveDeleteDir(new File("./testcompression"));
     }
 
+    @Test(timeout = 60_000)
+    public void testRecordsAreDroppedWithoutBlockingWhenQueueIsFull() throws IOException {
+        LogFileHandler h = new LogFileHandler();
+        h.setFilePattern(tmpDir.newFolder().getPath() + "/logfilehandlertest.%T");
+        h.setFormatter(new MessageOnlyFormatter());
+
+        int published = 100010;
+        synchronized (h) { // Blocks the log thread from writing anything
+            for (int i = 0; i < published; i++)
+                h.publish(new LogRecord(Level.INFO, "test"));
+            // The queue holds 100000 records, and the log thread may have taken one before it blocked
+            assertTrue(h.droppedRecords() == 9 || h.droppedRecords() == 10);
+        }
+        h.shutdown();
+    }
+
+    @Test
+    public void testRotationInTheMiddleOfABatch() throws IOException, InterruptedException {
+        LogFileHandler h = new LogFileHandler();
+        h.setFilePattern(tmpDir.newFolder().getPath() + "/logfilehandlertest.%T");
+        h.setFormatter(new MessageOnlyFormatter());
+        h.publish(new LogRecord(Level.INFO, "first"));
+        h.waitDrained();
+        String firstFile = h.getFileName();
+        Thread.sleep(5); // Make sure the next file gets another name
+
+        synchronized (h) { // Queues up all of these such that they are written in one batch
+            h.publish(new LogRecord(Level.INFO, "before rotation"));
+            h.rotateNow();
+            h.publish(new LogRecord(Level.INFO, "after rotation"));
+        }
+        h.waitDrained();
+        String secondFile = h.getFileName();
+        h.shutdown();
+
+        assertFalse(firstFile.equals(secondFile));
+        assertEquals("first\nbefore rotation\n", IOUtils.readFile(new File(firstFile)));
+        assertEquals("after rotation\n", IOUtils.readFile(new File(secondFile)));
+    }
+
+    @Test
+    public void testJsonEntryIsRenderedWhenWritten() throws IOException, InterruptedException {
+        File logFile = new File(tmpDir.newFolder(), "access.json");
+        AccessLogConfig config = new AccessLogConfig(new AccessLogConfig.Builder()
+                .fileHandler(new AccessLogConfig.FileHandler.Builder().pattern(logFile.getPath())
+                                                                      .compressOnRotation(false)));
+        JSONAccessLog accessLog = new JSONAccessLog(config);
+        AccessLogEntry entry = new AccessLogEntry();
+        entry.setRawPath("/search/");
+        entry.setRawQuery("query=test");
+        entry.setIpV4Address("152.200.54.243");
+        entry.setHttpMethod("GET");
+        entry.setHttpVersion("HTTP/1.1");
+        entry.setStatusCode(200);
+        entry.setTimeStamp(920880005023L);
+        accessLog.log(entry);
+
+        String expected = new JSONFormatter(entry).format() + "\n";
+        String written = "";
+        for (int i = 0; i < 1000 && ! written.equals(expected); i++) {
+            Thread.sleep(10);
+            if (logFile.exists())
+                written = new String(Files.readAllBytes(logFile.toPath()), StandardCharsets.UTF_8);
+        }
+        accessLog.shutdown();
+        assertEquals(expected, written);
+    }
+
+    private static class MessageOnlyFormatter extends Formatter {
+
+        @Override
+        public String format(LogRecord r) {
+            return r.getMessage() + "\n";
+        }
+
+    }
+
 }
@@ -9,6 +9,7 @@ import com.yahoo.container.di.componentgraph.Provider;
 import com.yahoo.container.protect.ProcessTerminator;
 import com.yahoo.jdisc.Metric;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
@@ -42,7 +43,7 @@ public class ThreadPoolProvider extends AbstractComponent implements Provider<Ex
                 new WorkerCompletionTimingThreadPoolExecutor(threadpoolConfig.maxthreads(),
                                                              threadpoolConfig.maxthreads(),
                                                              0L, TimeUnit.SECONDS,
-                                                             new SynchronousQueue<>(false),
+                                                             createQueue(threadpoolConfig.queueSize()),
                                                              ThreadFactoryFactory.getThreadFactory("threadpool"));
         // Prestart needed, if not all threads will be created by the fist N tasks and hence they might also
         // get the dreaded thread locals initialized even if they will never run.
@@ -52,6 +53,16 @@ public class ThreadPoolProvider extends AbstractComponent implements Provider<Ex
                                                 threadpoolConfig.maxThreadExecutionTimeSeconds() * 1000L);
     }
 
+    /**
+     * Returns a queue which hands tasks directly to an idle thread if queueSize is 0,
+     * and otherwise lets at most queueSize tasks wait for a thread to become available.
+     * Queued tasks are run in order when a thread becomes available, regardless of how long they have waited.
+     */
+    private static BlockingQueue<Runnable> createQueue(int queueSize) {
+        if (queueSize < 0) throw new IllegalArgumentException("Thread pool queue size cannot be negative, got " + queueSize);
+        return queueSize == 0 ? new SynchronousQueue<>(false) : new ArrayBlockingQueue<>(queueSize);
+    }
+
     /**
      * Get the Executor provided by this class. This Executor will by default
      * also be used for search queries and processing requests.
@@ -139,12 +150,18 @@ public class ThreadPoolProvider extends AbstractComponent implements Provider<Ex
                 super.execute(command);
             } catch (RejectedExecutionException e) {
                 metric.add(MetricNames.REJECTED_REQUEST, 1, null);
-                long timeSinceLastReturnedThreadMillis = System.currentTimeMillis() - wrapped.lastThreadAssignmentTimeMillis;
-                if (timeSinceLastReturnedThreadMillis > maxThreadExecutionTimeMillis)
-                    processTerminator.logAndDie("No worker threads have been available for " +
-                                                timeSinceLastReturnedThreadMillis + " ms. Shutting down.", true);
+                dieIfNoThreadsHaveBeenAvailable();
                 throw e;
             }
+            if ( ! wrapped.getQueue().isEmpty()) // The command was queued as no thread was available
+                dieIfNoThreadsHaveBeenAvailable();
+        }
+
+        private void dieIfNoThreadsHaveBeenAvailable() {
+            long timeSinceLastReturnedThreadMillis = System.currentTimeMillis() - wrapped.lastThreadAssignmentTimeMillis;
+            if (timeSinceLastReturnedThreadMillis > maxThreadExecutionTimeMillis)
+                processTerminator.logAndDie("No worker threads have been available for " +
+                                            timeSinceLastReturnedThreadMillis + " ms. Shutting down.", true);
         }
 
         @Override
@@ -3,8 +3,10 @@ package com.yahoo.container.handler;
 
 import static org.junit.Assert.fail;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import com.yahoo.container.protect.ProcessTerminator;
 import org.junit.Ignore;
@@ -17,6 +19,7 @@ import com.yahoo.collections.Tuple2;
 import com.yahoo.jdisc.Metric;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Check threadpool provider accepts tasks and shuts down properly.
@@ -58,6 +61,48 @@ public class ThreadPoolProviderTestCase {
         fail("Pool did not reject tasks after shutdown.");
     }
 
+    @Test
+    public void testQueueingWhenAllThreadsAreBusy() throws InterruptedException {
+        ThreadpoolConfig config = new ThreadpoolConfig(new ThreadpoolConfig.Builder().maxthreads(1).queueSize(1));
+        ThreadPoolProvider provider = new ThreadPoolProvider(config, Mockito.mock(Metric.class));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        provider.get().execute(() -> {
+            started.countDown();
+            try { release.await(); } catch (InterruptedException e) {}
+        });
+        assertTrue(started.await(60, TimeUnit.SECONDS));
+
+        FlipIt queued = new FlipIt();
+        provider.get().execute(queued); // waits for the busy thread
+        assertRejected(provider, new FlipIt()); // queue is full
+        release.countDown();
+        assertEquals(Boolean.TRUE, queued.didItRun.get(60 * 1000).second);
+        provider.deconstruct();
+    }
+
+    @Test
+    public void testTerminationWhenQueueingWithoutAvailableThreads() throws InterruptedException {
+        ThreadpoolConfig config = new ThreadpoolConfig(new ThreadpoolConfig.Builder().maxthreads(1)
+                                                                                     .queueSize(10)
+                                                                                     .maxThreadExecutionTimeSeconds(1));
+        MockProcessTerminator terminator = new MockProcessTerminator();
+        ThreadPoolProvider provider = new ThreadPoolProvider(config, Mockito.mock(Metric.class), terminator);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        provider.get().execute(() -> {
+            started.countDown();
+            try { release.await(); } catch (InterruptedException e) {}
+        });
+        assertTrue(started.await(60, TimeUnit.SECONDS));
+
+        Thread.sleep(1500);
+        provider.get().execute(new FlipIt()); // queued, with no thread available for longer than max execution time
+        assertEquals(1, terminator.dieRequests);
+        release.countDown();
+        provider.deconstruct();
+    }
+
     private class FlipIt implements Runnable {
         public final Receiver<Boolean> didItRun = new Receiver<>();
 
@@ -49,6 +49,12 @@ public class DocumentDatabase {
     /** Returns an unmodifiable map of all the rank profiles in this indexed by rank profile name */
     public Map<String, RankProfile> rankProfiles() { return rankProfiles; }
 
+    /** Returns whether the given rank profile adds summary features to summaries, or is unknown */
+    public boolean hasSummaryFeatures(String rankProfileName) {
+        RankProfile rankProfile = rankProfiles.get(rankProfileName);
+        return rankProfile == null || rankProfile.hasSummaryFeatures();
+    }
+
     private static ImmutableMap<String, RankProfile> toMap(Collection<RankProfile> rankProfiles) {
         return ImmutableMap.copyOf(rankProfiles.stream().collect(Collectors.toMap(RankProfile::getName, p -> p)));
     }
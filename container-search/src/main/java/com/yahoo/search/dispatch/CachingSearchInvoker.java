@@ -0,0 +1,70 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.searchchain.Execution;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * A search invoker which either produces a result from the {@link ResultCache}, or delegates
+ * to another invoker and caches the result it produces.
+ */
+class CachingSearchInvoker extends SearchInvoker {
+
+    private final ResultCache cache;
+    private final ResultCache.Key key;
+    private final ResultCache.Entry cached;
+    private final SearchInvoker delegate;
+    private Query query;
+
+    /** Creates an invoker producing the given cached result */
+    CachingSearchInvoker(ResultCache.Entry cached) {
+        super(Optional.empty());
+        this.cache = null;
+        this.key = null;
+        this.cached = cached;
+        this.delegate = null;
+    }
+
+    /** Creates an invoker which caches the result of the given delegate under the given key */
+    CachingSearchInvoker(SearchInvoker delegate, ResultCache cache, ResultCache.Key key) {
+        super(Optional.empty());
+        this.cache = cache;
+        this.key = key;
+        this.cached = null;
+        this.delegate = delegate;
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, Object context) throws IOException {
+        this.query = query;
+        if (delegate != null) {
+            return delegate.sendSearchRequest(query, context);
+        }
+        responseAvailable();
+        return context;
+    }
+
+    @Override
+    protected InvokerResult getSearchResult(Execution execution) throws IOException {
+        if (delegate == null) {
+            InvokerResult result = cached.toInvokerResult(query);
+            query.setOffset(0); // The cached hits are already trimmed to the requested window
+            return result;
+        }
+        InvokerResult result = delegate.getSearchResult(execution);
+        delegate.setFinalStatus(result.getResult().hits().getError() == null);
+        cache.put(key, result);
+        return result;
+    }
+
+    @Override
+    protected void release() {
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+
+}
@@ -5,6 +5,7 @@ import com.google.inject.Inject;
 import com.yahoo.cloud.config.ClusterInfoConfig;
 import com.yahoo.component.AbstractComponent;
 import com.yahoo.component.ComponentId;
+import com.yahoo.concurrent.DaemonThreadFactory;
 import com.yahoo.container.handler.VipStatus;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.prelude.fastsearch.VespaBackEndSearcher;
@@ -20,18 +21,29 @@ import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.Node;
 import com.yahoo.search.dispatch.searchcluster.PingFactory;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
+import com.yahoo.search.grouping.vespa.GroupingExecutor;
 import com.yahoo.search.query.profile.types.FieldDescription;
 import com.yahoo.search.query.profile.types.FieldType;
 import com.yahoo.search.query.profile.types.QueryProfileType;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.vespa.config.search.DispatchConfig;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A dispatcher communicates with search nodes to perform queries and fill hits.
@@ -50,14 +62,29 @@ public class Dispatcher extends AbstractComponent {
     public static final String DISPATCH = "dispatch";
     private static final String INTERNAL = "internal";
     private static final String PROTOBUF = "protobuf";
+    private static final String PREFETCH_SUMMARIES = "prefetchSummaries";
 
     private static final String INTERNAL_METRIC = "dispatch_internal";
+    private static final String RESULT_CACHE_HITS_METRIC = "dispatch_result_cache_hits";
+    private static final String RESULT_CACHE_MISSES_METRIC = "dispatch_result_cache_misses";
+    private static final String GROUP_LATENCY_METRIC = "dispatch_group_latency_";
+    private static final String NODE_LATENCY_METRIC = "dispatch_node_latency_";
+    private static final String NODE_PENDING_REQUESTS_METRIC = "dispatch_node_pending_requests";
+
+    private static final double[] REPORTED_LATENCY_PERCENTILES = { 50, 95, 99 };
+    private static final long LATENCY_REPORT_INTERVAL_MS = 10_000;
 
     private static final int MAX_GROUP_SELECTION_ATTEMPTS = 3;
 
+    /** The max number of backup requests of hedged searches which may be outstanding at once */
+    private static final int MAX_CONCURRENT_BACKUP_REQUESTS = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
     /** If enabled, search queries will use protobuf rpc */
     public static final CompoundName dispatchProtobuf = CompoundName.fromComponents(DISPATCH, PROTOBUF);
 
+    /** If enabled, summaries of the hits received so far are fetched while waiting for the remaining nodes */
+    public static final CompoundName dispatchPrefetchSummaries = CompoundName.fromComponents(DISPATCH, PREFETCH_SUMMARIES);
+
     /** A model of the search cluster this dispatches to */
     private final SearchCluster searchCluster;
     private final ClusterMonitor clusterMonitor;
@@ -66,8 +93,18 @@ public class Dispatcher extends AbstractComponent {
 
     private final InvokerFactory invokerFactory;
 
+    /** The cache of query results, if enabled */
+    private final Optional<ResultCache> resultCache;
+
+    /** The executor running the backup requests of hedged searches, if enabled. Queries are not hedged when it is full */
+    private final Optional<ExecutorService> hedgingExecutor;
+    private final double hedgeLatencyPercentile;
+
     private final Metric metric;
     private final Metric.Context metricContext;
+    private final Map<Group, Metric.Context> groupMetricContexts = new HashMap<>();
+    private final Map<Node, Metric.Context> nodeMetricContexts = new HashMap<>();
+    private final AtomicLong nextLatencyReport = new AtomicLong(0);
 
     private final int maxHitsPerNode;
 
@@ -79,6 +116,7 @@ public class Dispatcher extends AbstractComponent {
         argumentType.setBuiltin(true);
         argumentType.addField(new FieldDescription(INTERNAL, FieldType.booleanType));
         argumentType.addField(new FieldDescription(PROTOBUF, FieldType.booleanType));
+        argumentType.addField(new FieldDescription(PREFETCH_SUMMARIES, FieldType.booleanType));
         argumentType.freeze();
     }
 
@@ -120,12 +158,27 @@ public class Dispatcher extends AbstractComponent {
 
         this.searchCluster = searchCluster;
         this.clusterMonitor = clusterMonitor;
-        this.loadBalancer = new LoadBalancer(searchCluster,
-                                  dispatchConfig.distributionPolicy() == DispatchConfig.DistributionPolicy.ROUNDROBIN);
+        this.loadBalancer = new LoadBalancer(searchCluster, dispatchConfig.distributionPolicy());
         this.invokerFactory = invokerFactory;
         this.metric = metric;
         this.metricContext = metric.createContext(null);
+        for (Group group : searchCluster.orderedGroups()) {
+            groupMetricContexts.put(group, metric.createContext(Map.of("groupId", String.valueOf(group.id()))));
+            for (Node node : group.nodes()) {
+                nodeMetricContexts.put(node, metric.createContext(Map.of("groupId", String.valueOf(group.id()),
+                                                                         "distributionKey", String.valueOf(node.key()))));
+            }
+        }
         this.maxHitsPerNode = dispatchConfig.maxHitsPerNode();
+        this.resultCache = dispatchConfig.resultCacheSize() > 0
+                ? Optional.of(new ResultCache(dispatchConfig.resultCacheSize(),
+                                              Duration.ofMillis((long) (dispatchConfig.resultCacheTtl() * 1000)),
+                                              Clock.systemUTC()))
+                : Optional.empty();
+        this.hedgingExecutor = dispatchConfig.hedgeSearchRequests() && searchCluster.orderedGroups().size() > 1
+                ? Optional.of(createHedgingExecutor())
+                : Optional.empty();
+        this.hedgeLatencyPercentile = dispatchConfig.hedgeLatencyPercentile();
         searchCluster.addMonitoring(clusterMonitor);
         try {
             while ( ! searchCluster.hasInformationAboutAllNodes()) {
@@ -142,6 +195,14 @@ public class Dispatcher extends AbstractComponent {
         searchCluster.pingIterationCompleted();
     }
 
+    private static ExecutorService createHedgingExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONCURRENT_BACKUP_REQUESTS, MAX_CONCURRENT_BACKUP_REQUESTS,
+                                                             60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                                                             new DaemonThreadFactory("dispatch-hedging-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /** Returns the search cluster this dispatches to */
     public SearchCluster searchCluster() {
         return searchCluster;
@@ -151,6 +212,7 @@ public class Dispatcher extends AbstractComponent {
     public void deconstruct() {
         /* The clustermonitor must be shutdown first as it uses the invokerfactory through the searchCluster. */
         clusterMonitor.shutdown();
+        hedgingExecutor.ifPresent(ExecutorService::shutdown);
         invokerFactory.release();
     }
 
@@ -159,16 +221,57 @@ public class Dispatcher extends AbstractComponent {
     }
 
     public SearchInvoker getSearchInvoker(Query query, VespaBackEndSearcher searcher) {
-        SearchInvoker invoker = getSearchPathInvoker(query, searcher).orElseGet(() -> getInternalInvoker(query, searcher));
+        Optional<ResultCache.Key> cacheKey = resultCache.flatMap(cache -> cache.keyOf(query, searchCluster.stateGeneration()));
+        SearchInvoker invoker = cacheKey.isPresent() ? getCachingInvoker(cacheKey.get(), query, searcher)
+                                                     : getBackendInvoker(query, searcher);
 
         if (query.properties().getBoolean(com.yahoo.search.query.Model.ESTIMATE)) {
             query.setHits(0);
             query.setOffset(0);
         }
         metric.add(INTERNAL_METRIC, 1, metricContext);
+        reportLatencyMetrics();
         return invoker;
     }
 
+    /** Reports the latency distributions of groups and nodes, unless this was done recently */
+    private void reportLatencyMetrics() {
+        long now = System.currentTimeMillis();
+        long next = nextLatencyReport.get();
+        if (now < next || ! nextLatencyReport.compareAndSet(next, now + LATENCY_REPORT_INTERVAL_MS)) return;
+
+        for (Map.Entry<Group, Metric.Context> group : groupMetricContexts.entrySet()) {
+            for (double percentile : REPORTED_LATENCY_PERCENTILES) {
+                OptionalLong latency = loadBalancer.latencyPercentile(group.getKey(), percentile);
+                if (latency.isPresent())
+                    metric.set(GROUP_LATENCY_METRIC + "p" + (int) percentile, latency.getAsLong(), group.getValue());
+            }
+        }
+        for (Map.Entry<Node, Metric.Context> node : nodeMetricContexts.entrySet()) {
+            for (double percentile : REPORTED_LATENCY_PERCENTILES) {
+                OptionalLong latency = node.getKey().latency().percentile(percentile, 1);
+                if (latency.isPresent())
+                    metric.set(NODE_LATENCY_METRIC + "p" + (int) percentile, latency.getAsLong(), node.getValue());
+            }
+            metric.set(NODE_PENDING_REQUESTS_METRIC, node.getKey().pendingRequests(), node.getValue());
+        }
+    }
+
+    private SearchInvoker getBackendInvoker(Query query, VespaBackEndSearcher searcher) {
+        return getSearchPathInvoker(query, searcher).orElseGet(() -> getInternalInvoker(query, searcher));
+    }
+
+    /** Returns an invoker producing the cached result if present, and one populating the cache otherwise */
+    private SearchInvoker getCachingInvoker(ResultCache.Key cacheKey, Query query, VespaBackEndSearcher searcher) {
+        Optional<ResultCache.Entry> cached = resultCache.get().get(cacheKey);
+        if (cached.isPresent()) {
+            metric.add(RESULT_CACHE_HITS_METRIC, 1, metricContext);
+            return new CachingSearchInvoker(cached.get());
+        }
+        metric.add(RESULT_CACHE_MISSES_METRIC, 1, metricContext);
+        return new CachingSearchInvoker(getBackendInvoker(query, searcher), resultCache.get(), cacheKey);
+    }
+
     /** Builds an invoker based on searchpath */
     private Optional<SearchInvoker> getSearchPathInvoker(Query query, VespaBackEndSearcher searcher) {
         String searchPath = query.getModel().getSearchPath();
@@ -223,7 +326,7 @@ public class Dispatcher extends AbstractComponent {
                 query.trace(false, 2, "Dispatching to group ", group.id());
                 query.getModel().setSearchPath("/" + group.id());
                 invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
-                return invoker.get();
+                return hedged(invoker.get(), group, query, searcher);
             } else {
                 loadBalancer.releaseGroup(group, false, 0);
                 if (rejected == null) {
@@ -235,4 +338,34 @@ public class Dispatcher extends AbstractComponent {
         throw new IllegalStateException("No suitable groups to dispatch query. Rejected: " + rejected);
     }
 
+    /** Returns an invoker which resends the query to another group if the given group is slow, if hedging applies */
+    private SearchInvoker hedged(SearchInvoker invoker, Group group, Query query, VespaBackEndSearcher searcher) {
+        if (hedgingExecutor.isEmpty()) return invoker;
+        if (query.getTraceLevel() > 0 || GroupingExecutor.hasGroupingList(query)) return invoker;
+
+        OptionalLong hedgeDelay = loadBalancer.latencyPercentile(group, hedgeLatencyPercentile);
+        if (hedgeDelay.isEmpty() || hedgeDelay.getAsLong() >= query.getTimeLeft()) return invoker;
+
+        return new HedgedSearchInvoker(invoker, hedgeDelay.getAsLong(),
+                                       () -> getBackupInvoker(group, query, searcher),
+                                       hedgingExecutor.get());
+    }
+
+    /** Returns an invoker for a group other than the given one which has sufficient coverage, if any */
+    private Optional<SearchInvoker> getBackupInvoker(Group primary, Query query, VespaBackEndSearcher searcher) {
+        Optional<Group> backupInCluster = loadBalancer.takeGroup(Set.of(primary.id()));
+        if (backupInCluster.isEmpty()) return Optional.empty();
+
+        Group backup = backupInCluster.get();
+        Optional<SearchInvoker> invoker = backup.hasSufficientCoverage()
+                ? invokerFactory.createSearchInvoker(searcher, query, OptionalInt.of(backup.id()), backup.nodes(), false, maxHitsPerNode)
+                : Optional.empty();
+        if (invoker.isEmpty()) {
+            loadBalancer.releaseGroup(backup, false, 0);
+            return Optional.empty();
+        }
+        invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(backup, success, time));
+        return invoker;
+    }
+
 }
@@ -0,0 +1,192 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A search invoker which resends the query to a backup group if the primary group has not answered
+ * within a given delay, and produces the first successful result of the two groups.
+ *
+ * Content is distributed independently within each group, so a slow node cannot be replaced by a node in
+ * another group. Instead the entire query is resent, such that the backup result has the same coverage.
+ *
+ * The primary group is awaited and its result produced in the calling thread, such that queries which are
+ * not hedged cost no thread switch. The backup group searches a clone of the query in a thread of the
+ * given executor, and the query is not hedged if the executor has no capacity for it.
+ *
+ * When the backup group wins, the primary group is closed when it answers, such that its latency is
+ * still recorded, or as failed if it does not answer before the query times out.
+ */
+class HedgedSearchInvoker extends SearchInvoker {
+
+    private final SearchInvoker primary;
+    private final long hedgeDelayMs;
+    private final Supplier<Optional<SearchInvoker>> backupSupplier;
+    private final Executor executor;
+
+    /** Receives the primary invoker when it has all its responses, and the backup invoker when it has its result */
+    private final BlockingQueue<SearchInvoker> available = new LinkedBlockingQueue<>();
+
+    /** Completed with true when the primary invoker has all its responses */
+    private final CompletableFuture<Boolean> primaryAnswered = new CompletableFuture<>();
+
+    private boolean primaryResultProduced = false;
+
+    private Query query;
+    private SearchInvoker backup = null;
+    private Query backupQuery = null;
+    private CompletableFuture<InvokerResult> backupResult = null;
+
+    /**
+     * Creates a hedging invoker
+     *
+     * @param primary the invoker of the primary group
+     * @param hedgeDelayMs the time to wait for the primary group before involving a backup group
+     * @param backupSupplier supplies an invoker of a backup group, or empty if none is available
+     * @param executor the executor running searches in the backup group, which should reject tasks when full
+     */
+    HedgedSearchInvoker(SearchInvoker primary, long hedgeDelayMs, Supplier<Optional<SearchInvoker>> backupSupplier, Executor executor) {
+        super(Optional.empty());
+        this.primary = primary;
+        this.hedgeDelayMs = hedgeDelayMs;
+        this.backupSupplier = backupSupplier;
+        this.executor = executor;
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, Object context) throws IOException {
+        this.query = query;
+        primary.setMonitor(from -> {
+            available.add(primary);
+            primaryAnswered.complete(true);
+        });
+        return primary.sendSearchRequest(query, context);
+    }
+
+    @Override
+    protected InvokerResult getSearchResult(Execution execution) throws IOException {
+        if (awaitAvailable(hedgeDelayMs) == primary || ! startBackup(execution))
+            return primaryResult(execution);
+
+        query.trace(false, 2, "Primary group did not answer within ", hedgeDelayMs, " ms: Resending query to a backup group");
+        InvokerResult failedPrimaryResult = null;
+        boolean backupFailed = false;
+        while (true) {
+            SearchInvoker next = awaitAvailable(query.getTimeLeft());
+            if (next == null) { // Timed out: Produce whatever the primary group has
+                return failedPrimaryResult != null ? failedPrimaryResult : primaryResult(execution);
+            }
+            if (next == primary) {
+                InvokerResult result = primaryResult(execution);
+                if (succeeded(result) || backupFailed) return result;
+                failedPrimaryResult = result;
+            }
+            else {
+                InvokerResult result = backupResult.isCompletedExceptionally() ? null : backupResult.join();
+                if (result != null && succeeded(result)) return rebase(result);
+                if (failedPrimaryResult != null) return failedPrimaryResult;
+                backupFailed = true;
+            }
+        }
+    }
+
+    private InvokerResult primaryResult(Execution execution) throws IOException {
+        primaryResultProduced = true;
+        InvokerResult result = primary.getSearchResult(execution);
+        primary.setFinalStatus(succeeded(result));
+        return result;
+    }
+
+    /** Sends the query to a backup group and returns true, or returns false if this is not possible */
+    private boolean startBackup(Execution execution) {
+        Optional<SearchInvoker> backupInvoker = backupSupplier.get();
+        if (backupInvoker.isEmpty()) return false;
+
+        SearchInvoker backup = backupInvoker.get();
+        Query backupQuery = query.clone();
+        CompletableFuture<InvokerResult> backupResult;
+        try {
+            backupResult = CompletableFuture.supplyAsync(() -> searchResult(backup, backupQuery, execution), executor);
+        } catch (RejectedExecutionException e) {
+            backup.close();
+            return false;
+        }
+        backupResult.whenComplete((result, exception) -> available.add(backup));
+        this.backup = backup;
+        this.backupQuery = backupQuery;
+        this.backupResult = backupResult;
+        return true;
+    }
+
+    /** Returns the next invoker which is available, or null if none becomes available within the given time */
+    private SearchInvoker awaitAvailable(long timeoutMs) {
+        try {
+            return available.poll(Math.max(timeoutMs, 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Interrupted while waiting for search results", e);
+        }
+    }
+
+    private static boolean succeeded(InvokerResult result) {
+        return result.getResult().hits().getError() == null;
+    }
+
+    /** Returns a copy of the given result of the backup query, which belongs to the query of this */
+    private InvokerResult rebase(InvokerResult backupResult) {
+        Result backup = backupResult.getResult();
+        InvokerResult result = new InvokerResult(query, backupResult.getLeanHits().size());
+        result.getLeanHits().addAll(backupResult.getLeanHits());
+        for (Hit hit : backup.hits().asList()) {
+            result.getResult().hits().add(hit);
+        }
+        result.getResult().setTotalHitCount(backup.getTotalHitCount());
+        result.getResult().setCoverage(backup.getCoverage(false));
+        query.setOffset(backupQuery.getOffset());
+        return result;
+    }
+
+    private static InvokerResult searchResult(SearchInvoker invoker, Query query, Execution execution) {
+        try {
+            invoker.sendSearchRequest(query, null);
+            InvokerResult result = invoker.getSearchResult(execution);
+            invoker.setFinalStatus(succeeded(result));
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected void release() {
+        if (backup == null || primaryResultProduced) {
+            primary.close();
+        }
+        else { // The backup won: Await the primary such that its latency is recorded, and it is not penalized for losing
+            primaryAnswered.completeOnTimeout(false, Math.max(query.getTimeLeft(), 0), TimeUnit.MILLISECONDS)
+                           .thenAccept(answered -> {
+                               primary.setFinalStatus(answered);
+                               primary.close();
+                           });
+        }
+        if (backup != null) {
+            // The backup may not be closed concurrently with producing its result
+            SearchInvoker backup = this.backup;
+            backupResult.whenComplete((result, exception) -> backup.close());
+        }
+    }
+
+}
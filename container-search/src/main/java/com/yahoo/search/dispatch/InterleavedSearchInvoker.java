@@ -18,9 +18,11 @@ import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -43,6 +45,8 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     private final SearchCluster searchCluster;
     private final LinkedBlockingQueue<SearchInvoker> availableForProcessing;
     private final Set<Integer> alreadyFailedNodes;
+    private final Optional<SummaryPrefetcher> summaryPrefetcher;
+    private final AtomicInteger pendingResponses = new AtomicInteger(0);
     private Query query;
 
     private boolean adaptiveTimeoutCalculated = false;
@@ -60,23 +64,35 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     private boolean degradedByMatchPhase = false;
 
     public InterleavedSearchInvoker(Collection<SearchInvoker> invokers, SearchCluster searchCluster, Set<Integer> alreadyFailedNodes) {
+        this(invokers, searchCluster, alreadyFailedNodes, Optional.empty());
+    }
+
+    /**
+     * Creates an invoker which, if a summary prefetcher is given, starts fetching the summaries of the hits
+     * in the provisional result window once most nodes have answered, while waiting for the rest.
+     */
+    public InterleavedSearchInvoker(Collection<SearchInvoker> invokers, SearchCluster searchCluster, Set<Integer> alreadyFailedNodes,
+                                    Optional<SummaryPrefetcher> summaryPrefetcher) {
         super(Optional.empty());
         this.invokers = Collections.newSetFromMap(new IdentityHashMap<>());
         this.invokers.addAll(invokers);
         this.searchCluster = searchCluster;
         this.availableForProcessing = newQueue();
         this.alreadyFailedNodes = alreadyFailedNodes;
+        this.summaryPrefetcher = summaryPrefetcher;
     }
 
     /**
      * Sends search queries to the contained {@link SearchInvoker} sub-invokers. If the search
      * query has an offset other than zero, it will be reset to zero and the expected hit amount
-     * will be adjusted accordingly.
+     * will be adjusted accordingly. The sub-invokers share a context, so the request is serialized
+     * and compressed only once for all the nodes.
      */
     @Override
-    protected void sendSearchRequest(Query query) throws IOException {
+    protected Object sendSearchRequest(Query query, Object unusedContext) throws IOException {
         this.query = query;
         invokers.forEach(invoker -> invoker.setMonitor(this));
+        pendingResponses.set(invokers.size());
         deadline = currentTime() + query.getTimeLeft();
 
         int originalHits = query.getHits();
@@ -84,19 +100,21 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         query.setHits(query.getHits() + query.getOffset());
         query.setOffset(0);
 
+        Object context = null;
         for (SearchInvoker invoker : invokers) {
-            invoker.sendSearchRequest(query);
+            context = invoker.sendSearchRequest(query, context);
             askedNodes++;
         }
 
         query.setHits(originalHits);
         query.setOffset(originalOffset);
+        return null;
     }
 
     @Override
     protected InvokerResult getSearchResult(Execution execution) throws IOException {
         InvokerResult result = new InvokerResult(query, query.getHits());
-        List<LeanHit> merged = Collections.emptyList();
+        List<List<LeanHit>> partialHits = new ArrayList<>(invokers.size());
         long nextTimeout = query.getTimeLeft();
         try {
             while (!invokers.isEmpty() && nextTimeout >= 0) {
@@ -105,8 +123,11 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
                     log.fine(() -> "Search timed out with " + askedNodes + " requests made, " + answeredNodes + " responses received");
                     break;
                 } else {
-                    merged = mergeResult(result.getResult(), invoker.getSearchResult(execution), merged);
+                    mergeResult(result.getResult(), invoker.getSearchResult(execution), partialHits);
                     ejectInvoker(invoker);
+                    if ( ! invokers.isEmpty() && answeredNodes * 2 >= askedNodes) {
+                        summaryPrefetcher.ifPresent(prefetcher -> prefetchSummaries(prefetcher, partialHits));
+                    }
                 }
                 nextTimeout = nextTimeout();
             }
@@ -116,14 +137,22 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
 
         insertNetworkErrors(result.getResult());
         result.getResult().setCoverage(createCoverage());
-        int needed = query.getOffset() + query.getHits();
-        for (int index = query.getOffset(); (index < merged.size()) && (index < needed); index++) {
-            result.getLeanHits().add(merged.get(index));
-        }
+        mergeLeanHits(partialHits, query.getOffset(), query.getHits(), result.getLeanHits());
         query.setOffset(0);  // Now we are all trimmed down
+        if (summaryPrefetcher.isPresent()) {
+            summaryPrefetcher.get().awaitSummaries(result.getLeanHits());
+            result.usePrefetchedSummaries(summaryPrefetcher.get());
+        }
         return result;
     }
 
+    /** Prefetches the summaries of the hits in the window of the hits received so far */
+    private void prefetchSummaries(SummaryPrefetcher prefetcher, List<List<LeanHit>> partialHits) {
+        List<LeanHit> window = new ArrayList<>(query.getHits());
+        mergeLeanHits(partialHits, query.getOffset(), query.getHits(), window);
+        prefetcher.prefetch(window);
+    }
+
     private void insertNetworkErrors(Result result) {
         // Network errors will be reported as errors only when all nodes fail, otherwise they are just traced
         boolean asErrors = answeredNodes == 0;
@@ -190,7 +219,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         return nextAdaptive;
     }
 
-    private List<LeanHit> mergeResult(Result result, InvokerResult partialResult, List<LeanHit> current) {
+    private void mergeResult(Result result, InvokerResult partialResult, List<List<LeanHit>> partialHits) {
         collectCoverage(partialResult.getResult().getCoverage(true));
 
         result.mergeWith(partialResult.getResult());
@@ -200,42 +229,68 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
                 result.hits().add(hit);
             }
         }
-        if (current.isEmpty() ) {
-            return partialResult.getLeanHits();
+        if ( ! partialResult.getLeanHits().isEmpty()) {
+            partialHits.add(partialResult.getLeanHits());
         }
-        List<LeanHit> partial = partialResult.getLeanHits();
-        if (partial.isEmpty()) {
-            return current;
+    }
+
+    /**
+     * Merges the sorted hit lists from each node using a heap of per-node cursors, skipping duplicates.
+     * Only the hits in the requested window are added to the target, and merging stops as soon as the window is full.
+     */
+    static void mergeLeanHits(List<List<LeanHit>> partialHits, int offset, int hits, List<LeanHit> target) {
+        int needed = offset + hits;
+        if (partialHits.size() == 1) {
+            List<LeanHit> single = partialHits.get(0);
+            for (int index = offset; (index < single.size()) && (index < needed); index++) {
+                target.add(single.get(index));
+            }
+            return;
         }
 
-        int needed = query.getOffset() + query.getHits();
-        List<LeanHit> merged = new ArrayList<>(needed);
-        int indexCurrent = 0;
-        int indexPartial = 0;
-        while (indexCurrent < current.size() && indexPartial < partial.size() && merged.size() < needed) {
-            LeanHit incommingHit = partial.get(indexPartial);
-            LeanHit currentHit = current.get(indexCurrent);
-
-            int cmpRes = currentHit.compareTo(incommingHit);
-            if (cmpRes < 0) {
-                merged.add(currentHit);
-                indexCurrent++;
-            } else if (cmpRes > 0) {
-                merged.add(incommingHit);
-                indexPartial++;
-            } else { // Duplicates
-                merged.add(currentHit);
-                indexCurrent++;
-                indexPartial++;
+        PriorityQueue<HitCursor> heap = new PriorityQueue<>(Math.max(1, partialHits.size()));
+        for (List<LeanHit> partial : partialHits) {
+            if ( ! partial.isEmpty()) {
+                heap.add(new HitCursor(partial));
+            }
+        }
+        LeanHit previous = null;
+        int merged = 0;
+        while ( ! heap.isEmpty() && merged < needed) {
+            HitCursor cursor = heap.poll();
+            LeanHit hit = cursor.current();
+            if (previous == null || previous.compareTo(hit) != 0) { // Skip duplicates
+                if (merged >= offset) {
+                    target.add(hit);
+                }
+                merged++;
+                previous = hit;
+            }
+            if (cursor.advance()) {
+                heap.add(cursor);
             }
         }
-        while ((indexCurrent < current.size()) && (merged.size() < needed)) {
-            merged.add(current.get(indexCurrent++));
+    }
+
+    private static class HitCursor implements Comparable<HitCursor> {
+
+        private final List<LeanHit> hits;
+        private int index = 0;
+
+        HitCursor(List<LeanHit> hits) {
+            this.hits = hits;
         }
-        while ((indexPartial < partial.size()) && (merged.size() < needed)) {
-            merged.add(partial.get(indexPartial++));
+
+        LeanHit current() { return hits.get(index); }
+
+        /** Moves to the next hit, returning whether there was one */
+        boolean advance() { return ++index < hits.size(); }
+
+        @Override
+        public int compareTo(HitCursor other) {
+            return current().compareTo(other.current());
         }
-        return merged;
+
     }
 
     private void collectCoverage(Coverage source) {
@@ -305,11 +360,9 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         if (availableForProcessing != null) {
             availableForProcessing.add(from);
         }
-    }
-
-    @Override
-    protected void setMonitor(ResponseMonitor<SearchInvoker> monitor) {
-        // never to be called
+        if (pendingResponses.decrementAndGet() == 0) {
+            responseAvailable(); // All nodes have responded
+        }
     }
 
     // For overriding in tests
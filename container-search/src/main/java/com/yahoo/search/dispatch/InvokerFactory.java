@@ -6,6 +6,7 @@ import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.dispatch.searchcluster.Node;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
+import com.yahoo.search.grouping.vespa.GroupingExecutor;
 import com.yahoo.search.result.Coverage;
 import com.yahoo.search.result.ErrorMessage;
 
@@ -90,10 +91,23 @@ public abstract class InvokerFactory {
         if (invokers.size() == 1 && failed == null) {
             return Optional.of(invokers.get(0));
         } else {
-            return Optional.of(new InterleavedSearchInvoker(invokers, searchCluster, failed));
+            return Optional.of(new InterleavedSearchInvoker(invokers, searchCluster, failed, createSummaryPrefetcher(searcher, query)));
         }
     }
 
+    /**
+     * Returns a prefetcher of the summaries of the hits of the given query, if requested and applicable.
+     * Prefetching only applies to ungrouped queries ordered by relevance, as the hits in the result window
+     * are otherwise unlikely to be known before all nodes have answered.
+     */
+    private Optional<SummaryPrefetcher> createSummaryPrefetcher(VespaBackEndSearcher searcher, Query query) {
+        if ( ! query.properties().getBoolean(Dispatcher.dispatchPrefetchSummaries, false)) return Optional.empty();
+        if (query.getRanking().getSorting() != null || GroupingExecutor.hasGroupingList(query)) return Optional.empty();
+
+        return Optional.of(new SummaryPrefetcher(query, query.getPresentation().getSummary(),
+                                                 result -> createFillInvoker(searcher, result)));
+    }
+
     protected static SearchInvoker createCoverageErrorInvoker(List<Node> nodes, Set<Integer> failed) {
         StringBuilder down = new StringBuilder("Connection failure on nodes with distribution-keys: ");
         int count = 0;
@@ -4,7 +4,6 @@ package com.yahoo.search.dispatch;
 import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
-import com.yahoo.search.query.Sorting;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -16,6 +15,8 @@ import java.util.List;
 public class InvokerResult {
     private final Result result;
     private final List<LeanHit> leanHits;
+    private SummaryPrefetcher summaryPrefetcher = null;
+
     public InvokerResult(Result result) {
         this.result = result;
         this.leanHits = Collections.emptyList();
@@ -32,19 +33,29 @@ public class InvokerResult {
     public List<LeanHit> getLeanHits() {
         return leanHits;
     }
+
+    /** Sets the prefetcher holding the already filled hits to use when completing this */
+    void usePrefetchedSummaries(SummaryPrefetcher summaryPrefetcher) {
+        this.summaryPrefetcher = summaryPrefetcher;
+    }
+
     void complete() {
         Query query = result.getQuery();
-        Sorting sorting = query.getRanking().getSorting();
         for (LeanHit hit : leanHits) {
-            FastHit fh = new FastHit(hit.getGid(), hit.getRelevance(), hit.getPartId(), hit.getDistributionKey());
-            if (hit.hasSortData()) {
-                fh.setSortData(hit.getSortData(), sorting);
-            }
-            fh.setQuery(query);
-            fh.setFillable();
-            fh.setCached(false);
-            result.hits().add(fh);
+            FastHit fh = (summaryPrefetcher != null) ? summaryPrefetcher.prefetchedHit(hit) : null;
+            result.hits().add(fh != null ? fh : toFastHit(hit, query));
         }
         leanHits.clear();
     }
+
+    static FastHit toFastHit(LeanHit hit, Query query) {
+        FastHit fh = new FastHit(hit.getGid(), hit.getRelevance(), hit.getPartId(), hit.getDistributionKey());
+        if (hit.hasSortData()) {
+            fh.setSortData(hit.getSortData(), query.getRanking().getSorting());
+        }
+        fh.setQuery(query);
+        fh.setFillable();
+        fh.setCached(false);
+        return fh;
+    }
 }
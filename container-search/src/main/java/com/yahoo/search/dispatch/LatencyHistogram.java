@@ -0,0 +1,88 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import java.util.OptionalLong;
+
+/**
+ * A histogram of latencies in milliseconds with logarithmic buckets, each covering about 19% of its lower bound.
+ * The counts are halved whenever the number of recorded samples reaches a limit, such that the histogram
+ * gradually forgets old samples and follows changes in latency.
+ *
+ * This class is multithread safe.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 22 * SUB_BUCKETS; // Up to about an hour
+
+    private final long[] counts = new long[BUCKETS];
+    private final long decayLimit;
+    private long total = 0;
+
+    /** Creates a histogram which halves its counts whenever the given number of samples is reached */
+    public LatencyHistogram(long decayLimit) {
+        if (decayLimit < 2) throw new IllegalArgumentException("Decay limit must be at least 2, got " + decayLimit);
+        this.decayLimit = decayLimit;
+    }
+
+    public LatencyHistogram() {
+        this(2000);
+    }
+
+    /** Records a latency sample */
+    public synchronized void record(long latencyMs) {
+        counts[bucketOf(latencyMs)]++;
+        total++;
+        if (total >= decayLimit) {
+            total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] >>= 1;
+                total += counts[i];
+            }
+        }
+    }
+
+    /** Returns the number of samples currently in this, after decay */
+    public synchronized long count() {
+        return total;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of the latencies in this,
+     * or empty if this has fewer than the given number of samples
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @param minSamples the number of samples required for the estimate to be meaningful
+     */
+    public synchronized OptionalLong percentile(double percentile, long minSamples) {
+        if (total == 0 || total < minSamples) return OptionalLong.empty();
+
+        long needed = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long accumulated = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            accumulated += counts[i];
+            if (accumulated >= needed) {
+                return OptionalLong.of(upperBoundOf(i));
+            }
+        }
+        return OptionalLong.of(upperBoundOf(BUCKETS - 1));
+    }
+
+    static int bucketOf(long latencyMs) {
+        if (latencyMs < SUB_BUCKETS) return (int) Math.max(0, latencyMs);
+
+        int exponent = 63 - Long.numberOfLeadingZeros(latencyMs);
+        int subBucket = (int) ((latencyMs >> (exponent - 2)) & (SUB_BUCKETS - 1));
+        return Math.min(BUCKETS - 1, (exponent - 1) * SUB_BUCKETS + subBucket);
+    }
+
+    /** Returns the largest latency which is counted in the given bucket */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        int exponent = bucket / SUB_BUCKETS + 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - 2)) - 1;
+    }
+
+}
@@ -2,11 +2,14 @@
 package com.yahoo.search.dispatch;
 
 import com.yahoo.search.dispatch.searchcluster.Group;
+import com.yahoo.search.dispatch.searchcluster.Node;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
+import com.yahoo.vespa.config.search.DispatchConfig.DistributionPolicy;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Random;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -26,17 +29,25 @@ public class LoadBalancer {
     private static final long MIN_LATENCY_DECAY_RATE = 42;
     private static final double INITIAL_QUERY_TIME = 0.001;
     private static final double MIN_QUERY_TIME = 0.001;
+    private static final long MIN_LATENCY_SAMPLES = 100;
+    private static final double PREDICTED_LATENCY_PERCENTILE = 90.0;
 
     private final List<GroupStatus> scoreboard;
     private final GroupScheduler scheduler;
 
     public LoadBalancer(SearchCluster searchCluster, boolean roundRobin) {
+        this(searchCluster, roundRobin ? DistributionPolicy.ROUNDROBIN : DistributionPolicy.ADAPTIVE);
+    }
+
+    public LoadBalancer(SearchCluster searchCluster, DistributionPolicy.Enum policy) {
         this.scoreboard = new ArrayList<>(searchCluster.groups().size());
         for (Group group : searchCluster.orderedGroups()) {
             scoreboard.add(new GroupStatus(group));
         }
-        if (roundRobin || scoreboard.size() == 1) {
+        if (policy == DistributionPolicy.ROUNDROBIN || scoreboard.size() == 1) {
             this.scheduler = new RoundRobinScheduler(scoreboard);
+        } else if (policy == DistributionPolicy.BEST_OF_RANDOM_2) {
+            this.scheduler = new BestOfRandom2Scheduler(new Random(), scoreboard);
         } else {
             this.scheduler = new AdaptiveScheduler(new Random(), scoreboard);
         }
@@ -83,8 +94,22 @@ public class LoadBalancer {
         }
     }
 
+    /**
+     * Returns the given percentile of the latency of successful queries to the given group in milliseconds,
+     * or empty if there are too few samples for the estimate to be meaningful
+     */
+    public OptionalLong latencyPercentile(Group group, double percentile) {
+        for (GroupStatus sched : scoreboard) {
+            if (sched.group.id() == group.id()) {
+                return sched.latency.percentile(percentile, MIN_LATENCY_SAMPLES);
+            }
+        }
+        return OptionalLong.empty();
+    }
+
     static class GroupStatus {
         private final Group group;
+        private final LatencyHistogram latency = new LatencyHistogram();
         private int allocations = 0;
         private long queries = 0;
         private double averageSearchTime = INITIAL_QUERY_TIME;
@@ -104,6 +129,7 @@ public class LoadBalancer {
                 allocations = 0;
             }
             if (success) {
+                latency.record((long) (searchTime * 1000));
                 searchTime = Math.max(searchTime, MIN_QUERY_TIME);
                 double decayRate = Math.min(queries + MIN_LATENCY_DECAY_RATE, DEFAULT_LATENCY_DECAY_RATE);
                 averageSearchTime = (searchTime + (decayRate - 1) * averageSearchTime) / decayRate;
@@ -119,6 +145,27 @@ public class LoadBalancer {
             return 1.0 / averageSearchTime;
         }
 
+        /**
+         * Returns the predicted time in milliseconds until a query sent to this group now completes.
+         * A query completes when its slowest node answers, and each node is assumed to answer its outstanding requests
+         * one by one, each taking a high percentile of its past latencies. Nodes, or the group, with too few samples
+         * are assumed to have the average search time of the group.
+         */
+        double predictedCompletionTime() {
+            double groupLatency = Math.max(averageSearchTime * 1000, 1);
+            OptionalLong latencyPercentile = latency.percentile(PREDICTED_LATENCY_PERCENTILE, MIN_LATENCY_SAMPLES);
+            if (latencyPercentile.isPresent()) {
+                groupLatency = Math.max(latencyPercentile.getAsLong(), 1);
+            }
+            double prediction = groupLatency * (allocations + 1);
+            for (Node node : group.nodes()) {
+                OptionalLong nodeLatency = node.latency().percentile(PREDICTED_LATENCY_PERCENTILE, MIN_LATENCY_SAMPLES);
+                double latency = nodeLatency.isPresent() ? Math.max(nodeLatency.getAsLong(), 1) : groupLatency;
+                prediction = Math.max(prediction, latency * (node.pendingRequests() + 1));
+            }
+            return prediction;
+        }
+
         int groupId() {
             return group.id();
         }
@@ -251,4 +298,53 @@ public class LoadBalancer {
             return selectGroup(needle, false, rejectedGroups);
         }
     }
+
+    /**
+     * Picks two random groups and selects the one with the lowest predicted completion time.
+     * This avoids herding on the single best group, while rarely choosing a group which is slow or overloaded.
+     */
+    static class BestOfRandom2Scheduler implements GroupScheduler {
+        private final Random random;
+        private final List<GroupStatus> scoreboard;
+
+        public BestOfRandom2Scheduler(Random random, List<GroupStatus> scoreboard) {
+            this.random = random;
+            this.scoreboard = scoreboard;
+        }
+
+        private Optional<GroupStatus> selectGroup(boolean requireCoverage, Set<Integer> rejected) {
+            List<GroupStatus> candidates = new ArrayList<>(scoreboard.size());
+            for (GroupStatus gs : scoreboard) {
+                if (rejected == null || !rejected.contains(gs.group.id())) {
+                    if (!requireCoverage || gs.group.hasSufficientCoverage()) {
+                        candidates.add(gs);
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                return Optional.empty();
+            }
+            if (candidates.size() == 1) {
+                return Optional.of(candidates.get(0));
+            }
+            int first = random.nextInt(candidates.size());
+            int second = random.nextInt(candidates.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            GroupStatus a = candidates.get(first);
+            GroupStatus b = candidates.get(second);
+            return Optional.of(b.predictedCompletionTime() < a.predictedCompletionTime() ? b : a);
+        }
+
+        @Override
+        public Optional<GroupStatus> takeNextGroup(Set<Integer> rejectedGroups) {
+            Optional<GroupStatus> gs = selectGroup(true, rejectedGroups);
+            if (gs.isPresent()) {
+                return gs;
+            }
+            // fallback - any coverage better than none
+            return selectGroup(false, rejectedGroups);
+        }
+    }
 }
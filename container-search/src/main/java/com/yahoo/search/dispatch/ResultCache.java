@@ -0,0 +1,159 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.rpc.ProtobufSerialization;
+import com.yahoo.search.grouping.vespa.GroupingExecutor;
+import com.yahoo.search.result.Coverage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A size and time bounded cache of the lean results of queries, used by the {@link Dispatcher}
+ * to avoid sending repeated queries to the content nodes.
+ *
+ * Results are keyed on the serialized search request and the state generation of the search cluster,
+ * and only complete results without errors or degraded coverage are cached.
+ *
+ * This class is multithread safe.
+ */
+public class ResultCache {
+
+    private final int maxSize;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final Map<Key, Entry> entries;
+
+    public ResultCache(int maxSize, Duration timeToLive, Clock clock) {
+        if (maxSize <= 0) throw new IllegalArgumentException("Result cache size must be positive, got " + maxSize);
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > ResultCache.this.maxSize;
+            }
+        };
+    }
+
+    /** Returns the key to cache the result of this query under, or empty if its result should not be cached */
+    public Optional<Key> keyOf(Query query, long stateGeneration) {
+        if (query.getNoCache()) return Optional.empty();
+        if (query.getTraceLevel() > 0) return Optional.empty();
+        if (GroupingExecutor.hasGroupingList(query)) return Optional.empty();
+        // The summaries of such queries are fetched without the query, from a session created by the search
+        if (query.getRanking().getQueryCache()) return Optional.empty();
+
+        return Optional.of(new Key(ProtobufSerialization.serializeSearchRequestCacheKey(query),
+                                   query.getModel().getSearchPath(),
+                                   stateGeneration));
+    }
+
+    /** Returns the unexpired entry for this key, if any */
+    public synchronized Optional<Entry> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return Optional.empty();
+        if (entry.expiresAt.isBefore(clock.instant())) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    /** Caches this result if it is complete, replacing any existing entry for the key */
+    public void put(Key key, InvokerResult result) {
+        Result plain = result.getResult();
+        if (plain.hits().getError() != null) return;
+        if (plain.hits().size() > 0) return; // Only lean hits are cached
+        Coverage coverage = plain.getCoverage(false);
+        if (coverage == null || coverage.isDegraded()) return;
+
+        Entry entry = new Entry(List.copyOf(result.getLeanHits()), plain.getTotalHitCount(), coverage,
+                                clock.instant().plus(timeToLive));
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    /** The identity of a cached result */
+    public static final class Key {
+
+        private final byte[] request;
+        private final String searchPath;
+        private final long stateGeneration;
+        private final int hashCode;
+
+        Key(byte[] request, String searchPath, long stateGeneration) {
+            this.request = request;
+            this.searchPath = searchPath;
+            this.stateGeneration = stateGeneration;
+            this.hashCode = Objects.hash(Arrays.hashCode(request), searchPath, stateGeneration);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key) o;
+            return stateGeneration == other.stateGeneration
+                   && Objects.equals(searchPath, other.searchPath)
+                   && Arrays.equals(request, other.request);
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+    }
+
+    /** An immutable cached result */
+    public static final class Entry {
+
+        private final List<LeanHit> leanHits;
+        private final long totalHitCount;
+        private final long coverageDocs;
+        private final long coverageActive;
+        private final long coverageSoonActive;
+        private final int coverageNodes;
+        private final int coverageNodesTried;
+        private final int coverageResultSets;
+        private final Instant expiresAt;
+
+        private Entry(List<LeanHit> leanHits, long totalHitCount, Coverage coverage, Instant expiresAt) {
+            this.leanHits = leanHits;
+            this.totalHitCount = totalHitCount;
+            this.coverageDocs = coverage.getDocs();
+            this.coverageActive = coverage.getActive();
+            this.coverageSoonActive = coverage.getSoonActive();
+            this.coverageNodes = coverage.getNodes();
+            this.coverageNodesTried = coverage.getNodesTried();
+            this.coverageResultSets = coverage.getResultSets();
+            this.expiresAt = expiresAt;
+        }
+
+        /** Returns a new invoker result for the given query containing the hits of this */
+        InvokerResult toInvokerResult(Query query) {
+            InvokerResult result = new InvokerResult(query, leanHits.size());
+            result.getLeanHits().addAll(leanHits);
+            result.getResult().setTotalHitCount(totalHitCount);
+            Coverage coverage = new Coverage(coverageDocs, coverageActive, coverageNodes, coverageResultSets);
+            coverage.setNodesTried(coverageNodesTried);
+            coverage.setSoonActive(coverageSoonActive);
+            result.getResult().setCoverage(coverage);
+            return result;
+        }
+
+    }
+
+}
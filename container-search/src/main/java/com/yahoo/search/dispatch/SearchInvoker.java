@@ -32,14 +32,23 @@ public abstract class SearchInvoker extends CloseableInvoker {
      * for correct result windowing.
      */
     public Result search(Query query, Execution execution) throws IOException {
-        sendSearchRequest(query);
+        sendSearchRequest(query, null);
         InvokerResult result = getSearchResult(execution);
         setFinalStatus(result.getResult().hits().getError() == null);
         result.complete();
         return result.getResult();
     }
 
-    protected abstract void sendSearchRequest(Query query) throws IOException;
+    /**
+     * Sends the search request for the given query.
+     *
+     * @param query the query to send
+     * @param context an opaque object returned from a previous call to this method on a sibling invoker
+     *                of the same kind for the same query, or null. Implementations may use this to reuse
+     *                work, such as the serialized request, across all the nodes a query is sent to
+     * @return the context to pass to the next sibling invoker, or null if there is nothing to share
+     */
+    protected abstract Object sendSearchRequest(Query query, Object context) throws IOException;
 
     protected abstract InvokerResult getSearchResult(Execution execution) throws IOException;
 
@@ -0,0 +1,116 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Hit;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Fetches the summaries of the hits which are provisionally in the result window while some nodes are still
+ * matching, such that filling these hits overlaps with matching instead of following it.
+ * The provisional window may change as more nodes answer, so some of the prefetched summaries may go unused,
+ * and requests which only contain hits outside the final window are not waited for.
+ * Hits which are not prefetched are filled as usual.
+ *
+ * This class is not multithread safe.
+ */
+class SummaryPrefetcher {
+
+    private final Query query;
+    private final String summaryClass;
+    private final Function<Result, FillInvoker> fillInvokerFactory;
+
+    /** The hits which have been prefetched, by global id */
+    private final Map<ByteBuffer, FastHit> hits = new HashMap<>();
+    private final List<Fill> fills = new ArrayList<>();
+
+    /**
+     * Creates a prefetcher
+     *
+     * @param query the query to prefetch summaries for
+     * @param summaryClass the summary class to prefetch
+     * @param fillInvokerFactory creates a fill invoker for a result containing some of the hits of the query
+     */
+    SummaryPrefetcher(Query query, String summaryClass, Function<Result, FillInvoker> fillInvokerFactory) {
+        this.query = query;
+        this.summaryClass = summaryClass;
+        this.fillInvokerFactory = fillInvokerFactory;
+    }
+
+    /** Sends summary requests for the given hits which have not already been prefetched */
+    void prefetch(List<LeanHit> window) {
+        Result batch = new Result(query);
+        for (LeanHit hit : window) {
+            ByteBuffer globalId = ByteBuffer.wrap(hit.getGid());
+            if (hits.containsKey(globalId)) continue;
+
+            FastHit fastHit = InvokerResult.toFastHit(hit, query);
+            hits.put(globalId, fastHit);
+            batch.hits().add(fastHit);
+        }
+        if (batch.hits().size() == 0) return;
+
+        query.trace(false, 5, "Prefetching summaries of ", batch.hits().size(), " hits");
+        FillInvoker invoker = fillInvokerFactory.apply(batch);
+        invoker.sendFillRequest(batch, summaryClass);
+        fills.add(new Fill(invoker, batch));
+    }
+
+    /**
+     * Waits for the outstanding summary requests containing hits in the given final window, such that
+     * the prefetched hits may be used in a result. Requests made for stale windows only are closed without waiting.
+     */
+    void awaitSummaries(List<LeanHit> window) {
+        Set<ByteBuffer> globalIds = new HashSet<>();
+        for (LeanHit hit : window)
+            globalIds.add(ByteBuffer.wrap(hit.getGid()));
+
+        for (Fill fill : fills) {
+            try (FillInvoker invoker = fill.invoker) {
+                if (fill.containsAny(globalIds))
+                    invoker.getFillResults(fill.batch, summaryClass);
+            }
+        }
+        fills.clear();
+    }
+
+    /**
+     * Returns the prefetched hit for the given lean hit if its summary was successfully fetched, or null otherwise.
+     * This must only be called after {@link #awaitSummaries}.
+     */
+    FastHit prefetchedHit(LeanHit hit) {
+        FastHit fastHit = hits.get(ByteBuffer.wrap(hit.getGid()));
+        if (fastHit == null || ! fastHit.isFilled(summaryClass)) return null;
+        return fastHit;
+    }
+
+    private static class Fill {
+
+        final FillInvoker invoker;
+        final Result batch;
+
+        Fill(FillInvoker invoker, Result batch) {
+            this.invoker = invoker;
+            this.batch = batch;
+        }
+
+        boolean containsAny(Set<ByteBuffer> globalIds) {
+            for (Hit hit : batch.hits()) {
+                if (globalIds.contains(ByteBuffer.wrap(((FastHit) hit).getRawGlobalId()))) return true;
+            }
+            return false;
+        }
+
+    }
+
+}
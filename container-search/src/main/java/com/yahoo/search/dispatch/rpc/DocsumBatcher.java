@@ -0,0 +1,192 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
+import com.google.protobuf.ByteString;
+import com.yahoo.compress.Compressor;
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.Query;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combines docsum requests from concurrent queries to the same node into a single request, and splits the reply.
+ * Requests are gathered for a short delay after the first request to a node, or until a maximum number of
+ * documents is reached. Only requests which are identical except for the documents they ask for may be combined,
+ * which in practice means requests which do not carry any query data.
+ * Once this is shut down, new requests are sent at once, without being combined.
+ *
+ * This class is multithread safe.
+ */
+class DocsumBatcher {
+
+    private static final String RPC_METHOD = "vespa.searchprotocol.getDocsums";
+
+    private final long delayMicros;
+    private final int maxHits;
+    private final Compressor compressor;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Key, Batch> batches = new HashMap<>();
+
+    DocsumBatcher(long delayMicros, int maxHits, Compressor compressor) {
+        this.delayMicros = delayMicros;
+        this.maxHits = maxHits;
+        this.compressor = compressor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("docsum-batcher-"));
+    }
+
+    /** Returns whether the request described by the given builder may be combined with others */
+    static boolean canCombine(SearchProtocol.DocsumRequest.Builder request) {
+        return ! request.getCacheQuery() && ! request.getDumpFeatures() && request.getQueryTreeBlob().isEmpty();
+    }
+
+    /**
+     * Adds a request for the summaries of the given hits to the batch of the given node, which is sent when full
+     * or when the delay has passed. The receiver is given the part of the combined reply which holds these hits,
+     * in the same order.
+     *
+     * @param nodeId the distribution key of the node to request summaries from
+     * @param connection the connection to use if this is the first request in the batch
+     * @param request the request, without the global ids to request
+     * @param hits the hits to request summaries of
+     * @param query the query of the request
+     * @param receiver the receiver of the reply, or an error
+     */
+    void request(int nodeId, Client.NodeConnection connection, SearchProtocol.DocsumRequest.Builder request,
+                 List<FastHit> hits, Query query, Receiver receiver) {
+        Key key = new Key(nodeId, request.clone().clearTimeout().clearGlobalIds().build().toByteArray());
+        long deadline = System.currentTimeMillis() + query.getTimeLeft();
+        Batch toSend = null;
+        synchronized (this) {
+            Batch batch = batches.get(key);
+            if (batch == null) {
+                batch = new Batch(connection, request, query);
+                if (scheduleFlush(key, batch))
+                    batches.put(key, batch);
+                else
+                    toSend = batch;
+            }
+            batch.add(hits, receiver, deadline);
+            if (toSend == null && batch.hits >= maxHits) {
+                batches.remove(key);
+                toSend = batch;
+            }
+        }
+        if (toSend != null) {
+            toSend.send();
+        }
+    }
+
+    /** Schedules the given batch to be sent after the delay, or returns false if this is shut down */
+    private boolean scheduleFlush(Key key, Batch batch) {
+        try {
+            scheduler.schedule(() -> flush(key, batch), delayMicros, TimeUnit.MICROSECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void flush(Key key, Batch batch) {
+        synchronized (this) {
+            if ( ! batches.remove(key, batch)) return; // Already sent because it was full
+        }
+        batch.send();
+    }
+
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /** Receives the part of a combined reply which belongs to a request */
+    interface Receiver {
+
+        void receive(Client.ResponseOrError<DocsumReply> reply, List<FastHit> hits);
+
+    }
+
+    private class Batch {
+
+        private final Client.NodeConnection connection;
+        private final SearchProtocol.DocsumRequest.Builder request;
+        private final Query query;
+        private final List<List<FastHit>> hitLists = new ArrayList<>();
+        private final List<Receiver> receivers = new ArrayList<>();
+        private long deadline = 0;
+        private int hits = 0;
+
+        Batch(Client.NodeConnection connection, SearchProtocol.DocsumRequest.Builder request, Query query) {
+            this.connection = connection;
+            this.request = request.clone().clearGlobalIds();
+            this.query = query;
+        }
+
+        void add(List<FastHit> hitList, Receiver receiver, long deadline) {
+            hitLists.add(hitList);
+            receivers.add(receiver);
+            this.deadline = Math.max(this.deadline, deadline);
+            this.hits += hitList.size();
+        }
+
+        void send() {
+            long timeLeft = deadline - System.currentTimeMillis();
+            request.setTimeout((int) timeLeft);
+            for (List<FastHit> hitList : hitLists) {
+                for (FastHit hit : hitList) {
+                    request.addGlobalIds(ByteString.copyFrom(hit.getRawGlobalId()));
+                }
+            }
+            byte[] payload = request.build().toByteArray();
+            Compressor.Compression compressed = compressor.compress(RpcResourcePool.compressionOf(query), payload);
+            connection.request(RPC_METHOD, compressed.type(), payload.length, compressed.data(), this::receive,
+                               (timeLeft - 3.0) / 1000.0);
+        }
+
+        private void receive(Client.ResponseOrError<Client.ProtobufResponse> response) {
+            DocsumReply reply = response.response().map(r -> DocsumReply.of(r, compressor)).orElse(null);
+            int offset = 0;
+            for (int i = 0; i < receivers.size(); i++) {
+                List<FastHit> hitList = hitLists.get(i);
+                receivers.get(i).receive(reply != null ? Client.ResponseOrError.fromResponse(reply.part(offset))
+                                                       : Client.ResponseOrError.fromError(response.error().get()),
+                                         hitList);
+                offset += hitList.size();
+            }
+        }
+
+    }
+
+    private static final class Key {
+
+        private final int nodeId;
+        private final ByteBuffer request;
+
+        Key(int nodeId, byte[] request) {
+            this.nodeId = nodeId;
+            this.request = ByteBuffer.wrap(request);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key) o;
+            return nodeId == other.nodeId && request.equals(other.request);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(nodeId, request); }
+
+    }
+
+}
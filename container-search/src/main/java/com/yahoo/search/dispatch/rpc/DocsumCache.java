@@ -0,0 +1,107 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.yahoo.data.access.Inspector;
+import com.yahoo.data.access.slime.SlimeAdapter;
+import com.yahoo.prelude.fastsearch.DocsumDefinition;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A size and time bounded cache of decoded document summaries, keyed on global id and summary definition.
+ * Since summary definitions are recreated on reconfiguration, entries from a previous configuration are never returned.
+ *
+ * Only summaries which do not depend on the query may be cached.
+ *
+ * This class is multithread safe.
+ */
+class DocsumCache {
+
+    private final int maxSize;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final Map<Key, Entry> entries;
+
+    DocsumCache(int maxSize, Duration timeToLive, Clock clock) {
+        if (maxSize <= 0) throw new IllegalArgumentException("Docsum cache size must be positive, got " + maxSize);
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > DocsumCache.this.maxSize;
+            }
+        };
+    }
+
+    /** Returns the unexpired summary of the given document in the given summary class, if any */
+    synchronized Optional<Inspector> get(DocsumDefinition summary, byte[] globalId) {
+        Key key = new Key(summary, globalId);
+        Entry entry = entries.get(key);
+        if (entry == null) return Optional.empty();
+        if (entry.expiresAt.isBefore(clock.instant())) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(entry.docsum);
+    }
+
+    /** Stores a copy of the given summary */
+    void put(DocsumDefinition summary, byte[] globalId, com.yahoo.slime.Inspector docsum) {
+        Slime copy = new Slime();
+        SlimeUtils.copyObject(docsum, copy.setObject());
+        Entry entry = new Entry(new SlimeAdapter(copy.get()), clock.instant().plus(timeToLive));
+        synchronized (this) {
+            entries.put(new Key(summary, globalId), entry);
+        }
+    }
+
+    synchronized int size() { return entries.size(); }
+
+    private static final class Key {
+
+        private final DocsumDefinition summary;
+        private final byte[] globalId;
+        private final int hashCode;
+
+        Key(DocsumDefinition summary, byte[] globalId) {
+            this.summary = summary;
+            this.globalId = globalId;
+            this.hashCode = 31 * System.identityHashCode(summary) + Arrays.hashCode(globalId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key) o;
+            return summary == other.summary && Arrays.equals(globalId, other.globalId);
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+    }
+
+    private static final class Entry {
+
+        private final Inspector docsum;
+        private final Instant expiresAt;
+
+        Entry(Inspector docsum, Instant expiresAt) {
+            this.docsum = docsum;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
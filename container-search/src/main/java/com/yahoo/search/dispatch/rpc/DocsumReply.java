@@ -0,0 +1,70 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
+import com.yahoo.search.dispatch.rpc.Client.ProtobufResponse;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Inspector;
+
+/**
+ * A reply to a docsum request, or the part of a reply to a combined request which belongs to one of the requests
+ * in the combination. The reply is decoded on first access, by the thread processing it, and only once for
+ * all the parts of a combined reply.
+ *
+ * This class is multithread safe.
+ */
+class DocsumReply {
+
+    private final Payload payload;
+    private final int offset;
+
+    private DocsumReply(Payload payload, int offset) {
+        this.payload = payload;
+        this.offset = offset;
+    }
+
+    /** Returns a reply consisting of the entire given response */
+    static DocsumReply of(ProtobufResponse response, Compressor compressor) {
+        return new DocsumReply(new Payload(response, compressor), 0);
+    }
+
+    /** Returns the part of this reply which starts at the given docsum index */
+    DocsumReply part(int offset) {
+        return new DocsumReply(payload, offset);
+    }
+
+    /** Returns the root of the decoded reply, which holds the errors and docsums of the entire reply */
+    Inspector root() throws InvalidProtocolBufferException {
+        return payload.root();
+    }
+
+    /** Returns the index in the docsums of the root of the first docsum of this */
+    int offset() { return offset; }
+
+    private static class Payload {
+
+        private final ProtobufResponse response;
+        private final Compressor compressor;
+        private Inspector root = null;
+
+        Payload(ProtobufResponse response, Compressor compressor) {
+            this.response = response;
+            this.compressor = compressor;
+        }
+
+        synchronized Inspector root() throws InvalidProtocolBufferException {
+            if (root == null) {
+                CompressionType compression = CompressionType.valueOf(response.compression());
+                byte[] bytes = compressor.decompress(response.compressedPayload(), compression, response.uncompressedSize());
+                var protobuf = SearchProtocol.DocsumReply.parseFrom(bytes);
+                root = BinaryFormat.decode(protobuf.getSlimeSummaries().toByteArray()).get();
+            }
+            return root;
+        }
+
+    }
+
+}
@@ -5,7 +5,8 @@ import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol.StringProperty;
 import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol.TensorProperty;
 import com.google.protobuf.ByteString;
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
 import com.yahoo.data.access.simple.Value;
 import com.yahoo.data.access.slime.SlimeAdapter;
 import com.yahoo.fs4.GetDocSumsPacket;
@@ -29,6 +30,7 @@ import com.yahoo.searchlib.aggregation.Grouping;
 import com.yahoo.slime.BinaryFormat;
 import com.yahoo.vespa.objects.BufferSerializer;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
@@ -38,11 +40,36 @@ public class ProtobufSerialization {
 
     private static final int INITIAL_SERIALIZATION_BUFFER_SIZE = 10 * 1024;
 
+    /** The number of bits holding the wire type in a field tag, as in {@link WireFormat} */
+    private static final int TAG_TYPE_BITS = 3;
+
+    // The tags of the fields read when decoding a search reply directly, see deserializeToSearchResult
+    private static final int TOTAL_HIT_COUNT_TAG = SearchProtocol.SearchReply.TOTAL_HIT_COUNT_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_VARINT;
+    private static final int COVERAGE_DOCS_TAG = SearchProtocol.SearchReply.COVERAGE_DOCS_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_VARINT;
+    private static final int ACTIVE_DOCS_TAG = SearchProtocol.SearchReply.ACTIVE_DOCS_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_VARINT;
+    private static final int SOON_ACTIVE_DOCS_TAG = SearchProtocol.SearchReply.SOON_ACTIVE_DOCS_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_VARINT;
+    private static final int DEGRADED_BY_MATCH_PHASE_TAG = SearchProtocol.SearchReply.DEGRADED_BY_MATCH_PHASE_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_VARINT;
+    private static final int DEGRADED_BY_SOFT_TIMEOUT_TAG = SearchProtocol.SearchReply.DEGRADED_BY_SOFT_TIMEOUT_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_VARINT;
+    private static final int HITS_TAG = SearchProtocol.SearchReply.HITS_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int GROUPING_BLOB_TAG = SearchProtocol.SearchReply.GROUPING_BLOB_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int SLIME_TRACE_TAG = SearchProtocol.SearchReply.SLIME_TRACE_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int HIT_GLOBAL_ID_TAG = SearchProtocol.Hit.GLOBAL_ID_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+    private static final int HIT_RELEVANCE_TAG = SearchProtocol.Hit.RELEVANCE_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_FIXED64;
+    private static final int HIT_SORT_DATA_TAG = SearchProtocol.Hit.SORT_DATA_FIELD_NUMBER << TAG_TYPE_BITS | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
     static byte[] serializeSearchRequest(Query query, int hits, String serverId) {
-        return convertFromQuery(query, hits, serverId).toByteArray();
+        return convertFromQuery(query, hits, serverId, true).toByteArray();
+    }
+
+    /**
+     * Returns a serialized search request which identifies the result of the given query,
+     * that is, the request excluding timeout and session information.
+     */
+    public static byte[] serializeSearchRequestCacheKey(Query query) {
+        return convertFromQuery(query, query.getHits(), null, false).toBuilder().clearTimeout().build().toByteArray();
     }
 
-    private static SearchProtocol.SearchRequest convertFromQuery(Query query, int hits, String serverId) {
+    private static SearchProtocol.SearchRequest convertFromQuery(Query query, int hits, String serverId, boolean includeSessionKey) {
         var builder = SearchProtocol.SearchRequest.newBuilder().setHits(hits).setOffset(query.getOffset())
                 .setTimeout((int) query.getTimeLeft());
 
@@ -52,7 +79,7 @@ public class ProtobufSerialization {
         }
         builder.setQueryTreeBlob(serializeQueryTree(query.getModel().getQueryTree()));
 
-        if (query.getGroupingSessionCache() || query.getRanking().getQueryCache()) {
+        if (includeSessionKey && (query.getGroupingSessionCache() || query.getRanking().getQueryCache())) {
             // TODO verify that the session key is included whenever rank properties would have been
             builder.setSessionKey(query.getSessionId(serverId).toString());
         }
@@ -182,10 +209,74 @@ public class ProtobufSerialization {
         return convertFromResult(searchResult).toByteArray();
     }
 
-    static InvokerResult deserializeToSearchResult(byte[] payload, Query query, VespaBackEndSearcher searcher, int partId, int distKey)
-            throws InvalidProtocolBufferException {
-        var protobuf = SearchProtocol.SearchReply.parseFrom(payload);
-        return convertToResult(query, protobuf, searcher.getDocumentDatabase(query), partId, distKey);
+    /**
+     * Decodes a serialized search reply directly into a result, without creating the intermediate protobuf message objects.
+     * Nothing in the returned result refers to the given payload, so the caller may reuse it.
+     *
+     * @param payload the array holding the serialized reply, from index 0
+     * @param length the length of the serialized reply
+     */
+    static InvokerResult deserializeToSearchResult(byte[] payload, int length, Query query, VespaBackEndSearcher searcher,
+                                                   int partId, int distKey) throws IOException {
+        InvokerResult result = new InvokerResult(query, query.getHits());
+        long coverageDocs = 0, activeDocs = 0, soonActiveDocs = 0;
+        boolean degradedByMatchPhase = false, degradedBySoftTimeout = false;
+        byte[] groupingBlob = null;
+        byte[] slimeTrace = null;
+
+        CodedInputStream input = CodedInputStream.newInstance(payload, 0, length);
+        boolean done = false;
+        while ( ! done) {
+            int tag = input.readTag();
+            switch (tag) {
+                case 0: done = true; break;
+                case TOTAL_HIT_COUNT_TAG: result.getResult().setTotalHitCount(input.readInt64()); break;
+                case COVERAGE_DOCS_TAG: coverageDocs = input.readInt64(); break;
+                case ACTIVE_DOCS_TAG: activeDocs = input.readInt64(); break;
+                case SOON_ACTIVE_DOCS_TAG: soonActiveDocs = input.readInt64(); break;
+                case DEGRADED_BY_MATCH_PHASE_TAG: degradedByMatchPhase = input.readBool(); break;
+                case DEGRADED_BY_SOFT_TIMEOUT_TAG: degradedBySoftTimeout = input.readBool(); break;
+                case HITS_TAG:
+                    int limit = input.pushLimit(input.readRawVarint32());
+                    result.getLeanHits().add(readHit(input, partId, distKey));
+                    input.popLimit(limit);
+                    break;
+                case GROUPING_BLOB_TAG: groupingBlob = input.readByteArray(); break;
+                case SLIME_TRACE_TAG: slimeTrace = input.readByteArray(); break;
+                default: done = ! input.skipField(tag);
+            }
+        }
+        result.getResult().setCoverage(convertToCoverage(coverageDocs, activeDocs, soonActiveDocs,
+                                                         degradedByMatchPhase, degradedBySoftTimeout));
+        if (groupingBlob != null && groupingBlob.length > 0) {
+            addGrouping(query, ByteBuffer.wrap(groupingBlob), searcher.getDocumentDatabase(query), result);
+        }
+        if (slimeTrace != null && slimeTrace.length > 0) {
+            addTrace(query, slimeTrace);
+        }
+        return result;
+    }
+
+    private static LeanHit readHit(CodedInputStream input, int partId, int distKey) throws IOException {
+        byte[] globalId = null;
+        double relevance = 0;
+        byte[] sortData = null;
+        boolean done = false;
+        while ( ! done) {
+            int tag = input.readTag();
+            switch (tag) {
+                case 0: done = true; break;
+                case HIT_GLOBAL_ID_TAG: globalId = input.readByteArray(); break;
+                case HIT_RELEVANCE_TAG: relevance = input.readDouble(); break;
+                case HIT_SORT_DATA_TAG: sortData = input.readByteArray(); break;
+                default: done = ! input.skipField(tag);
+            }
+        }
+        if (globalId == null) {
+            globalId = new byte[0];
+        }
+        return (sortData == null || sortData.length == 0) ? new LeanHit(globalId, partId, distKey, relevance)
+                                                          : new LeanHit(globalId, partId, distKey, sortData);
     }
 
     static InvokerResult convertToResult(Query query, SearchProtocol.SearchReply protobuf,
@@ -194,21 +285,13 @@ public class ProtobufSerialization {
         InvokerResult result = new InvokerResult(query, protobuf.getHitsCount());
 
         result.getResult().setTotalHitCount(protobuf.getTotalHitCount());
-        result.getResult().setCoverage(convertToCoverage(protobuf));
+        result.getResult().setCoverage(convertToCoverage(protobuf.getCoverageDocs(), protobuf.getActiveDocs(),
+                                                         protobuf.getSoonActiveDocs(), protobuf.getDegradedByMatchPhase(),
+                                                         protobuf.getDegradedBySoftTimeout()));
 
         var haveGrouping = protobuf.getGroupingBlob() != null && !protobuf.getGroupingBlob().isEmpty();
         if (haveGrouping) {
-            BufferSerializer buf = new BufferSerializer(new GrowableByteBuffer(protobuf.getGroupingBlob().asReadOnlyByteBuffer()));
-            int cnt = buf.getInt(null);
-            ArrayList<Grouping> list = new ArrayList<>(cnt);
-            for (int i = 0; i < cnt; i++) {
-                Grouping g = new Grouping();
-                g.deserialize(buf);
-                list.add(g);
-            }
-            GroupingListHit hit = new GroupingListHit(list, documentDatabase.getDocsumDefinitionSet());
-            hit.setQuery(query);
-            result.getResult().hits().add(hit);
+            addGrouping(query, protobuf.getGroupingBlob().asReadOnlyByteBuffer(), documentDatabase, result);
         }
 
         for (var replyHit : protobuf.getHitsList()) {
@@ -220,21 +303,40 @@ public class ProtobufSerialization {
 
         var slimeTrace = protobuf.getSlimeTrace();
         if (slimeTrace != null && !slimeTrace.isEmpty()) {
-            var traces = new Value.ArrayValue();
-            traces.add(new SlimeAdapter(BinaryFormat.decode(slimeTrace.toByteArray()).get()));
-            query.trace(traces, query.getTraceLevel());
+            addTrace(query, slimeTrace.toByteArray());
         }
         return result;
     }
 
-    private static Coverage convertToCoverage(SearchProtocol.SearchReply protobuf) {
-        var coverage = new Coverage(protobuf.getCoverageDocs(), protobuf.getActiveDocs(), 1);
-        coverage.setNodesTried(1).setSoonActive(protobuf.getSoonActiveDocs());
+    private static void addGrouping(Query query, ByteBuffer groupingBlob, DocumentDatabase documentDatabase, InvokerResult result) {
+        BufferSerializer buf = new BufferSerializer(new GrowableByteBuffer(groupingBlob));
+        int cnt = buf.getInt(null);
+        ArrayList<Grouping> list = new ArrayList<>(cnt);
+        for (int i = 0; i < cnt; i++) {
+            Grouping g = new Grouping();
+            g.deserialize(buf);
+            list.add(g);
+        }
+        GroupingListHit hit = new GroupingListHit(list, documentDatabase.getDocsumDefinitionSet());
+        hit.setQuery(query);
+        result.getResult().hits().add(hit);
+    }
+
+    private static void addTrace(Query query, byte[] slimeTrace) {
+        var traces = new Value.ArrayValue();
+        traces.add(new SlimeAdapter(BinaryFormat.decode(slimeTrace).get()));
+        query.trace(traces, query.getTraceLevel());
+    }
+
+    private static Coverage convertToCoverage(long coverageDocs, long activeDocs, long soonActiveDocs,
+                                              boolean degradedByMatchPhase, boolean degradedBySoftTimeout) {
+        var coverage = new Coverage(coverageDocs, activeDocs, 1);
+        coverage.setNodesTried(1).setSoonActive(soonActiveDocs);
 
         int degradedReason = 0;
-        if (protobuf.getDegradedByMatchPhase())
+        if (degradedByMatchPhase)
             degradedReason |= Coverage.DEGRADED_BY_MATCH_PHASE;
-        if (protobuf.getDegradedBySoftTimeout())
+        if (degradedBySoftTimeout)
             degradedReason |= Coverage.DEGRADED_BY_TIMEOUT;
         coverage.setDegradedReason(degradedReason);
 
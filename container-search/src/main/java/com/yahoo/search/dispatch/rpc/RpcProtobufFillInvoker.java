@@ -5,11 +5,11 @@ import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.yahoo.collections.ListMap;
 import com.yahoo.collections.Pair;
-import com.yahoo.compress.CompressionType;
 import com.yahoo.compress.Compressor;
 import com.yahoo.container.protect.Error;
 import com.yahoo.data.access.Inspector;
 import com.yahoo.data.access.slime.SlimeAdapter;
+import com.yahoo.prelude.fastsearch.DocsumDefinition;
 import com.yahoo.prelude.fastsearch.DocumentDatabase;
 import com.yahoo.prelude.fastsearch.FastHit;
 import com.yahoo.prelude.fastsearch.TimeoutException;
@@ -17,14 +17,15 @@ import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.dispatch.FillInvoker;
 import com.yahoo.search.dispatch.rpc.Client.ProtobufResponse;
+import com.yahoo.search.query.Ranking;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
 import com.yahoo.slime.ArrayTraverser;
-import com.yahoo.slime.BinaryFormat;
 
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -47,7 +48,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     private final boolean summaryNeedsQuery;
     private final String serverId;
 
-    private BlockingQueue<Pair<Client.ResponseOrError<ProtobufResponse>, List<FastHit>>> responses;
+    private BlockingQueue<Pair<Client.ResponseOrError<DocsumReply>, List<FastHit>>> responses;
 
     /** Whether we have already logged/notified about an error - to avoid spamming */
     private boolean hasReportedError = false;
@@ -55,6 +56,9 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     /** The number of responses we should receive (and process) before this is complete */
     private int outstandingResponses;
 
+    /** The summary cache to use in the current fill, or null if the requested summaries cannot be cached */
+    private DocsumCache docsumCache = null;
+
     RpcProtobufFillInvoker(RpcResourcePool resourcePool, DocumentDatabase documentDb, String serverId, boolean summaryNeedsQuery) {
         this.documentDb = documentDb;
         this.resourcePool = resourcePool;
@@ -64,17 +68,18 @@ public class RpcProtobufFillInvoker extends FillInvoker {
 
     @Override
     protected void sendFillRequest(Result result, String summaryClass) {
-        ListMap<Integer, FastHit> hitsByNode = hitsByNode(result);
+        docsumCache = resourcePool.docsumCache().filter(cache -> summaryIsQueryIndependent(result.getQuery(), summaryClass))
+                                                .orElse(null);
+        ListMap<Integer, FastHit> hitsByNode = hitsByNode(result, summaryClass);
 
         result.getQuery().trace(false, 5, "Sending ", hitsByNode.size(), " summary fetch requests with jrt/protobuf");
 
         outstandingResponses = hitsByNode.size();
-        responses = new LinkedBlockingQueue<>(outstandingResponses);
+        responses = new LinkedBlockingQueue<>(); // unbounded, as there may be no responses when all hits are cached
 
         var builder = ProtobufSerialization.createDocsumRequestBuilder(result.getQuery(), serverId, summaryClass, summaryNeedsQuery);
         for (Map.Entry<Integer, List<FastHit>> nodeHits : hitsByNode.entrySet()) {
-            var payload = ProtobufSerialization.serializeDocsumRequest(builder, nodeHits.getValue());
-            sendDocsumsRequest(nodeHits.getKey(), nodeHits.getValue(), payload, result);
+            sendDocsumsRequest(nodeHits.getKey(), nodeHits.getValue(), builder, result);
         }
     }
 
@@ -95,26 +100,58 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     }
 
     /** Called by a thread belonging to the client when a valid response becomes available */
-    public void receive(Client.ResponseOrError<ProtobufResponse> response, List<FastHit> hitsContext) {
+    public void receive(Client.ResponseOrError<DocsumReply> response, List<FastHit> hitsContext) {
         responses.add(new Pair<>(response, hitsContext));
     }
 
-    /** Return a map of hits by their search node (partition) id */
-    private static ListMap<Integer, FastHit> hitsByNode(Result result) {
+    private void receiveResponse(Client.ResponseOrError<ProtobufResponse> response, List<FastHit> hitsContext) {
+        receive(response.response().isPresent()
+                        ? Client.ResponseOrError.fromResponse(DocsumReply.of(response.response().get(), resourcePool.compressor()))
+                        : Client.ResponseOrError.fromError(response.error().get()),
+                hitsContext);
+    }
+
+    /** Return a map of hits by their search node (partition) id, excluding those filled from the summary cache */
+    private ListMap<Integer, FastHit> hitsByNode(Result result, String summaryClass) {
         ListMap<Integer, FastHit> hitsByNode = new ListMap<>();
         for (Iterator<Hit> i = result.hits().unorderedDeepIterator(); i.hasNext();) {
             Hit h = i.next();
             if (!(h instanceof FastHit))
                 continue;
             FastHit hit = (FastHit) h;
+            if (docsumCache != null && fillFromCache(hit, summaryClass))
+                continue;
 
             hitsByNode.put(hit.getDistributionKey(), hit);
         }
         return hitsByNode;
     }
 
-    /** Send a docsums request to a node. Responses will be added to the given receiver. */
-    private void sendDocsumsRequest(int nodeId, List<FastHit> hits, byte[] payload, Result result) {
+    /** Returns whether the requested summaries are the same for all queries, such that they may be cached */
+    private boolean summaryIsQueryIndependent(Query query, String summaryClass) {
+        if (query.getNoCache()) return false;
+        if (documentDb.getDocsumDefinitionSet().getDocsum(summaryClass).isDynamic()) return false;
+        if (query.properties().getBoolean(Ranking.RANKFEATURES, false)) return false;
+        if (query.getRanking().getListFeatures()) return false;
+        return ! documentDb.hasSummaryFeatures(query.getRanking().getProfile());
+    }
+
+    private boolean fillFromCache(FastHit hit, String summaryClass) {
+        DocsumDefinition docsumDefinition = documentDb.getDocsumDefinitionSet().getDocsum(summaryClass);
+        Optional<Inspector> summary = docsumCache.get(docsumDefinition, hit.getRawGlobalId());
+        if (summary.isEmpty()) return false;
+
+        hit.setField(Hit.SDDOCNAME_FIELD, documentDb.getName());
+        hit.addSummary(docsumDefinition, summary.get());
+        hit.setFilled(summaryClass);
+        return true;
+    }
+
+    /**
+     * Send a docsums request to a node, or add it to the batch of requests to the node if requests are combined.
+     * Responses will be added to the given receiver.
+     */
+    private void sendDocsumsRequest(int nodeId, List<FastHit> hits, SearchProtocol.DocsumRequest.Builder builder, Result result) {
         Client.NodeConnection node = resourcePool.getConnection(nodeId);
         if (node == null) {
             String error = "Could not fill hits from unknown node " + nodeId;
@@ -125,9 +162,15 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         }
 
         Query query = result.getQuery();
+        Optional<DocsumBatcher> batcher = resourcePool.docsumBatcher().filter(b -> DocsumBatcher.canCombine(builder));
+        if (batcher.isPresent()) {
+            batcher.get().request(nodeId, node, builder, hits, query, this::receive);
+            return;
+        }
+        var payload = ProtobufSerialization.serializeDocsumRequest(builder, hits);
         double timeoutSeconds = ((double) query.getTimeLeft() - 3.0) / 1000.0;
         Compressor.Compression compressionResult = resourcePool.compress(query, payload);
-        node.request(RPC_METHOD, compressionResult.type(), payload.length, compressionResult.data(), roe -> receive(roe, hits),
+        node.request(RPC_METHOD, compressionResult.type(), payload.length, compressionResult.data(), roe -> receiveResponse(roe, hits),
                 timeoutSeconds);
     }
 
@@ -157,7 +200,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         }
     }
 
-    private int processResponse(Result result, Client.ResponseOrError<ProtobufResponse> responseOrError, List<FastHit> hitsContext,
+    private int processResponse(Result result, Client.ResponseOrError<DocsumReply> responseOrError, List<FastHit> hitsContext,
             String summaryClass) {
         if (responseOrError.error().isPresent()) {
             if (hasReportedError) {
@@ -168,11 +211,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
             log.log(Level.WARNING, "Error fetching summary data: " + error);
             hasReportedError = true;
         } else {
-            Client.ProtobufResponse response = responseOrError.response().get();
-            CompressionType compression = CompressionType.valueOf(response.compression());
-            byte[] responseBytes = resourcePool.compressor().decompress(response.compressedPayload(), compression,
-                    response.uncompressedSize());
-            return fill(result, hitsContext, summaryClass, responseBytes);
+            return fill(result, hitsContext, summaryClass, responseOrError.response().get());
         }
         return 0;
     }
@@ -184,10 +223,9 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         });
     }
 
-    private int fill(Result result, List<FastHit> hits, String summaryClass, byte[] payload) {
+    private int fill(Result result, List<FastHit> hits, String summaryClass, DocsumReply reply) {
         try {
-            var protobuf = SearchProtocol.DocsumReply.parseFrom(payload);
-            var root = BinaryFormat.decode(protobuf.getSlimeSummaries().toByteArray()).get();
+            var root = reply.root();
             var errors = root.field("errors");
             boolean hasErrors = errors.valid() && (errors.entries() > 0);
             if (hasErrors) {
@@ -198,13 +236,17 @@ public class RpcProtobufFillInvoker extends FillInvoker {
             if (!summaries.valid()) {
                 return 0; // No summaries; Perhaps we requested a non-existing summary class
             }
+            DocsumDefinition docsumDefinition = documentDb.getDocsumDefinitionSet().getDocsum(summaryClass);
             int skippedHits = 0;
             for (int i = 0; i < hits.size(); i++) {
-                Inspector summary = summaries.entry(i).field("docsum");
+                Inspector summary = summaries.entry(reply.offset() + i).field("docsum");
                 if (summary.valid()) {
                     hits.get(i).setField(Hit.SDDOCNAME_FIELD, documentDb.getName());
-                    hits.get(i).addSummary(documentDb.getDocsumDefinitionSet().getDocsum(summaryClass), summary);
+                    hits.get(i).addSummary(docsumDefinition, summary);
                     hits.get(i).setFilled(summaryClass);
+                    if (docsumCache != null && ! hasErrors) {
+                        docsumCache.put(docsumDefinition, hits.get(i).getRawGlobalId(), root.field("docsums").entry(reply.offset() + i).field("docsum"));
+                    }
                 } else {
                     skippedHits++;
                 }
@@ -11,10 +11,13 @@ import com.yahoo.search.dispatch.FillInvoker;
 import com.yahoo.search.dispatch.rpc.Client.NodeConnection;
 import com.yahoo.vespa.config.search.DispatchConfig;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
 
 /**
@@ -33,10 +36,26 @@ public class RpcResourcePool {
     /** Connections to the search nodes this talks to, indexed by node id ("partid") */
     private final ImmutableMap<Integer, NodeConnectionPool> nodeConnectionPools;
 
+    /** The cache of query independent document summaries, if enabled */
+    private final Optional<DocsumCache> docsumCache;
+
+    /** Combines summary requests from concurrent queries, if enabled */
+    private final Optional<DocsumBatcher> docsumBatcher;
+
     public RpcResourcePool(Map<Integer, NodeConnection> nodeConnections) {
+        this(nodeConnections, Optional.empty());
+    }
+
+    RpcResourcePool(Map<Integer, NodeConnection> nodeConnections, Optional<DocsumCache> docsumCache) {
+        this(nodeConnections, docsumCache, Optional.empty());
+    }
+
+    RpcResourcePool(Map<Integer, NodeConnection> nodeConnections, Optional<DocsumCache> docsumCache, Optional<DocsumBatcher> docsumBatcher) {
         var builder = new ImmutableMap.Builder<Integer, NodeConnectionPool>();
         nodeConnections.forEach((key, connection) -> builder.put(key, new NodeConnectionPool(Collections.singletonList(connection))));
         this.nodeConnectionPools = builder.build();
+        this.docsumCache = docsumCache;
+        this.docsumBatcher = docsumBatcher;
     }
 
     public RpcResourcePool(DispatchConfig dispatchConfig) {
@@ -53,6 +72,14 @@ public class RpcResourcePool {
             builder.put(node.key(), new NodeConnectionPool(connections));
         }
         this.nodeConnectionPools = builder.build();
+        this.docsumCache = dispatchConfig.docsumCacheSize() > 0
+                ? Optional.of(new DocsumCache(dispatchConfig.docsumCacheSize(),
+                                              Duration.ofMillis((long) (dispatchConfig.docsumCacheTtl() * 1000)),
+                                              Clock.systemUTC()))
+                : Optional.empty();
+        this.docsumBatcher = dispatchConfig.docsumBatchDelayMicros() > 0
+                ? Optional.of(new DocsumBatcher(dispatchConfig.docsumBatchDelayMicros(), dispatchConfig.docsumBatchMaxHits(), compressor))
+                : Optional.empty();
     }
 
     public Compressor compressor() {
@@ -60,8 +87,20 @@ public class RpcResourcePool {
     }
 
     public Compression compress(Query query, byte[] payload) {
-        CompressionType compression = CompressionType.valueOf(query.properties().getString(dispatchCompression, "LZ4").toUpperCase());
-        return compressor.compress(compression, payload);
+        return compressor.compress(compressionOf(query), payload);
+    }
+
+    /** Returns the compression to use for requests for the given query */
+    static CompressionType compressionOf(Query query) {
+        return CompressionType.valueOf(query.properties().getString(dispatchCompression, "LZ4").toUpperCase());
+    }
+
+    Optional<DocsumCache> docsumCache() {
+        return docsumCache;
+    }
+
+    Optional<DocsumBatcher> docsumBatcher() {
+        return docsumBatcher;
     }
 
     public NodeConnection getConnection(int nodeId) {
@@ -74,6 +113,7 @@ public class RpcResourcePool {
     }
 
     public void release() {
+        docsumBatcher.ifPresent(DocsumBatcher::shutdown);
         nodeConnectionPools.values().forEach(NodeConnectionPool::release);
     }
 
@@ -28,6 +28,10 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
 
     private static final String RPC_METHOD = "vespa.searchprotocol.search";
 
+    /** Replies larger than this are decompressed into a new array rather than the buffer of the thread */
+    private static final int MAX_BUFFERED_REPLY_SIZE = 1 << 20;
+    private static final ThreadLocal<byte[]> replyBuffer = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
+
     private final VespaBackEndSearcher searcher;
     private final Node node;
     private final RpcResourcePool resourcePool;
@@ -35,6 +39,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
     private final int maxHits;
 
     private Query query;
+    private long sentAtNanos;
 
     RpcSearchInvoker(VespaBackEndSearcher searcher, Node node, RpcResourcePool resourcePool, int maxHits) {
         super(Optional.of(node));
@@ -46,21 +51,41 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
     }
 
     @Override
-    protected void sendSearchRequest(Query query) {
+    protected Object sendSearchRequest(Query query, Object incomingContext) {
         this.query = query;
 
         Client.NodeConnection nodeConnection = resourcePool.getConnection(node.key());
         if (nodeConnection == null) {
             responses.add(Client.ResponseOrError.fromError("Could not send search to unknown node " + node.key()));
             responseAvailable();
-            return;
+            return incomingContext;
         }
         query.trace(false, 5, "Sending search request with jrt/protobuf to node with dist key ", node.key());
 
-        var payload = ProtobufSerialization.serializeSearchRequest(query, Math.min(query.getHits(), maxHits), searcher.getServerId());
+        RpcContext context = getContext(incomingContext);
         double timeoutSeconds = ((double) query.getTimeLeft() - 3.0) / 1000.0;
-        Compressor.Compression compressionResult = resourcePool.compress(query, payload);
-        nodeConnection.request(RPC_METHOD, compressionResult.type(), payload.length, compressionResult.data(), this, timeoutSeconds);
+        sentAtNanos = System.nanoTime();
+        node.requestSent();
+        nodeConnection.request(RPC_METHOD,
+                               context.compressedPayload.type(),
+                               context.compressedPayload.uncompressedSize(),
+                               context.compressedPayload.data(),
+                               this,
+                               timeoutSeconds);
+        return context;
+    }
+
+    /**
+     * Returns the incoming context if it holds a request serialized for the same number of hits as this
+     * node should get, and a new context with a freshly serialized and compressed request otherwise
+     */
+    private RpcContext getContext(Object incomingContext) {
+        int hits = Math.min(query.getHits(), maxHits);
+        if (incomingContext instanceof RpcContext && ((RpcContext) incomingContext).hits == hits) {
+            return (RpcContext) incomingContext;
+        }
+        var payload = ProtobufSerialization.serializeSearchRequest(query, hits, searcher.getServerId());
+        return new RpcContext(hits, resourcePool.compress(query, payload));
     }
 
     @Override
@@ -87,10 +112,29 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
 
         ProtobufResponse protobufResponse = response.response().get();
         CompressionType compression = CompressionType.valueOf(protobufResponse.compression());
-        byte[] payload = resourcePool.compressor().decompress(protobufResponse.compressedPayload(), compression, protobufResponse.uncompressedSize());
-        var result = ProtobufSerialization.deserializeToSearchResult(payload, query, searcher, node.pathIndex(), node.key());
+        if (compression == CompressionType.NONE || compression == CompressionType.INCOMPRESSIBLE) {
+            byte[] payload = protobufResponse.compressedPayload();
+            return ProtobufSerialization.deserializeToSearchResult(payload, payload.length, query, searcher, node.pathIndex(), node.key());
+        }
+        byte[] buffer = decompressionBuffer(protobufResponse.uncompressedSize());
+        int length = resourcePool.compressor().decompress(compression, protobufResponse.compressedPayload(),
+                                                          protobufResponse.uncompressedSize(), buffer);
+        return ProtobufSerialization.deserializeToSearchResult(buffer, length, query, searcher, node.pathIndex(), node.key());
+    }
 
-        return result;
+    /**
+     * Returns an array with room for a reply of the given size. This is the buffer of the current thread unless the size is
+     * large, as the decoded result does not refer to the buffer.
+     */
+    private static byte[] decompressionBuffer(int size) {
+        if (size > MAX_BUFFERED_REPLY_SIZE) return new byte[size];
+
+        byte[] buffer = replyBuffer.get();
+        if (buffer.length < size) {
+            buffer = new byte[Integer.highestOneBit(size - 1) << 1];
+            replyBuffer.set(buffer);
+        }
+        return buffer;
     }
 
     @Override
@@ -99,6 +143,7 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
     }
 
     public void receive(Client.ResponseOrError<ProtobufResponse> response) {
+        node.requestCompleted(response.response().isPresent(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAtNanos));
         responses.add(response);
         responseAvailable();
     }
@@ -107,4 +152,17 @@ public class RpcSearchInvoker extends SearchInvoker implements Client.ResponseRe
         return searcher.getName();
     }
 
+    /** A serialized and compressed search request which may be shared by all the invokers of a query */
+    static class RpcContext {
+
+        final int hits;
+        final Compressor.Compression compressedPayload;
+
+        RpcContext(int hits, Compressor.Compression compressedPayload) {
+            this.hits = hits;
+            this.compressedPayload = compressedPayload;
+        }
+
+    }
+
 }
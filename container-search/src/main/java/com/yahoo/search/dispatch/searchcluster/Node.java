@@ -1,8 +1,11 @@
 // Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch.searchcluster;
 
+import com.yahoo.search.dispatch.LatencyHistogram;
+
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -23,6 +26,8 @@ public class Node {
     private final AtomicLong activeDocuments = new AtomicLong(0);
     private final AtomicLong pingSequence = new AtomicLong(0);
     private final AtomicLong lastPong = new AtomicLong(0);
+    private final AtomicInteger pendingRequests = new AtomicInteger(0);
+    private final LatencyHistogram latency = new LatencyHistogram();
 
     public Node(int key, String hostname, int group) {
         this.key = key;
@@ -79,6 +84,30 @@ public class Node {
         return activeDocuments.get();
     }
 
+    /** Registers that a search request has been sent to this node */
+    public void requestSent() {
+        pendingRequests.incrementAndGet();
+    }
+
+    /**
+     * Registers that a search request sent to this node has completed
+     *
+     * @param success whether the node produced a response
+     * @param latencyMs the time from sending the request until it completed
+     */
+    public void requestCompleted(boolean success, long latencyMs) {
+        pendingRequests.decrementAndGet();
+        if (success) {
+            latency.record(latencyMs);
+        }
+    }
+
+    /** Returns the number of search requests sent to this node which have not yet completed */
+    public int pendingRequests() { return pendingRequests.get(); }
+
+    /** Returns the latencies of the successful search requests to this node */
+    public LatencyHistogram latency() { return latency; }
+
     @Override
     public int hashCode() { return Objects.hash(hostname, key, pathIndex, group); }
 
@@ -18,6 +18,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -39,6 +40,7 @@ public class SearchCluster implements NodeManager<Node> {
     private final VipStatus vipStatus;
     private final PingFactory pingFactory;
     private long nextLogTime = 0;
+    private final AtomicLong stateGeneration = new AtomicLong(0);
 
     /**
      * A search node on this local machine having the entire corpus, which we therefore
@@ -180,7 +182,16 @@ public class SearchCluster implements NodeManager<Node> {
         return localCorpusDispatchTarget;
     }
 
+    /**
+     * Returns a number which is increased whenever a node changes working state or a group changes coverage status,
+     * such that results obtained at one generation are not necessarily valid at another
+     */
+    public long stateGeneration() { return stateGeneration.get(); }
+
     private void updateWorkingState(Node node, boolean isWorking) {
+        if ( ! Boolean.valueOf(isWorking).equals(node.isWorking())) {
+            stateGeneration.incrementAndGet();
+        }
         node.setWorking(isWorking);
         updateVipStatusOnNodeChange(node, isWorking);
     }
@@ -200,6 +211,7 @@ public class SearchCluster implements NodeManager<Node> {
     private void updateSufficientCoverage(Group group, boolean sufficientCoverage) {
         if (sufficientCoverage == group.hasSufficientCoverage()) return; // no change
 
+        stateGeneration.incrementAndGet();
         group.setHasSufficientCoverage(sufficientCoverage);
         updateVipStatusOnCoverageChange(group, sufficientCoverage);
     }
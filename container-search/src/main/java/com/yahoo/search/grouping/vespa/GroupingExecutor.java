@@ -4,10 +4,13 @@ package com.yahoo.search.grouping.vespa;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import com.yahoo.component.ComponentId;
@@ -219,11 +222,18 @@ public class GroupingExecutor extends Searcher {
         if (query.isTraceable(3) && query.getGroupingSessionCache()) {
             query.trace("Grouping in " + (lastPass + 1) + " passes. SessionId='" + query.getSessionId() + "'.", 3);
         }
+        Set<Integer> completed = new HashSet<>();
         for (int pass = 0; pass <= lastPass; ++pass) {
             boolean firstPass = (pass == 0);
-            List<Grouping> passList = getGroupingListForPassN(groupingMap, pass);
+            List<Grouping> passList = getGroupingListForPassN(groupingMap, completed, pass);
             if (passList.isEmpty()) {
-                throw new RuntimeException("No grouping request for pass " + pass + ", bug!");
+                if (firstPass) {
+                    throw new RuntimeException("No grouping request for pass " + pass + ", bug!");
+                }
+                if (query.isTraceable(3)) {
+                    query.trace("Grouping completed after " + pass + " of " + (lastPass + 1) + " passes as no groups are left to expand.", 3);
+                }
+                break;
             }
             if (log.isLoggable(LogLevel.DEBUG)) {
                 for (Grouping grouping : passList) {
@@ -259,6 +269,12 @@ public class GroupingExecutor extends Searcher {
             }
             Map<Integer, Grouping> passGroupingMap = mergeGroupingResults(passResult);
             mergeGroupingMaps(groupingMap, passGroupingMap);
+            for (Integer id : passGroupingMap.keySet()) {
+                Grouping grouping = groupingMap.get(id);
+                if (grouping != null && ! hasGroupsAtDepth(grouping.getRoot(), pass + 1)) {
+                    completed.add(id);
+                }
+            }
             if (firstPass) {
                 ret = passResult;
             }
@@ -291,14 +307,31 @@ public class GroupingExecutor extends Searcher {
         }
     }
 
+    /**
+     * Returns whether the given group has any descendants at the given depth below it. As pass N of a grouping
+     * expands the groups found at depth N, a grouping which received no groups at that depth needs no further passes.
+     *
+     * @param group The group to check.
+     * @param depth The depth to look for groups at, where the children of the given group are at depth 1.
+     * @return True if there are any groups at the given depth.
+     */
+    private static boolean hasGroupsAtDepth(com.yahoo.searchlib.aggregation.Group group, int depth) {
+        if (depth == 0) return true;
+        for (com.yahoo.searchlib.aggregation.Group child : group.getChildren()) {
+            if (hasGroupsAtDepth(child, depth - 1)) return true;
+        }
+        return false;
+    }
+
     /**
      * Returns a list of {@link Grouping} objects that are to be used for the given pass.
      *
      * @param groupingMap The map of all grouping objects.
+     * @param completed   The ids of the multi-pass groupings which are known to need no further passes.
      * @param pass        The pass about to be performed.
      * @return A list of grouping objects.
      */
-    private List<Grouping> getGroupingListForPassN(Map<Integer, Grouping> groupingMap, int pass) {
+    private List<Grouping> getGroupingListForPassN(Map<Integer, Grouping> groupingMap, Set<Integer> completed, int pass) {
         List<Grouping> ret = new ArrayList<>();
         for (Grouping grouping : groupingMap.values()) {
             if (grouping.useSinglePass()) {
@@ -308,7 +341,7 @@ public class GroupingExecutor extends Searcher {
                     ret.add(grouping); // more levels to go
                 }
             } else {
-                if (pass <= grouping.getLevels().size()) {
+                if (pass <= grouping.getLevels().size() && ! completed.contains(grouping.getId())) {
                     grouping.setFirstLevel(pass);
                     grouping.setLastLevel(pass);
                     ret.add(grouping); // more levels to go
@@ -326,25 +359,23 @@ public class GroupingExecutor extends Searcher {
      * @return A map of merged grouping objects.
      */
     private Map<Integer, Grouping> mergeGroupingResults(Result result) {
-        Map<Integer, Grouping> ret = new HashMap<>();
+        Map<Integer, List<Grouping>> groupingsById = new LinkedHashMap<>();
         for (Iterator<Hit> i = result.hits().unorderedIterator(); i.hasNext(); ) {
             Hit hit = i.next();
             if (hit instanceof GroupingListHit) {
                 ContextInjector injector = new ContextInjector(hit);
                 for (Grouping grp : ((GroupingListHit)hit).getGroupingList()) {
                     grp.select(injector, injector);
-                    Grouping old = ret.get(grp.getId());
-                    if (old != null) {
-                        old.merge(grp);
-                    } else {
-                        ret.put(grp.getId(), grp);
-                    }
+                    groupingsById.computeIfAbsent(grp.getId(), __ -> new ArrayList<>()).add(grp);
                 }
                 i.remove();
             }
         }
-        for (Grouping grouping : ret.values()) {
-            grouping.postMerge();
+        Map<Integer, Grouping> ret = new HashMap<>();
+        for (List<Grouping> groupings : groupingsById.values()) {
+            Grouping merged = GroupingMerger.merge(groupings);
+            merged.postMerge();
+            ret.put(merged.getId(), merged);
         }
         return ret;
     }
@@ -0,0 +1,70 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.grouping.vespa;
+
+import com.yahoo.searchlib.aggregation.Grouping;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Merges the results of the same grouping request from many content nodes.
+ * Results are merged pairwise in a balanced tree rather than folded one by one into an accumulated result,
+ * such that each group is merged a logarithmic rather than linear number of times in the number of nodes.
+ * When there are many results, independent subtrees are merged in parallel.
+ */
+class GroupingMerger {
+
+    /** The number of results below which a subtree is merged in the calling thread */
+    private static final int sequentialThreshold = 16;
+
+    private GroupingMerger() {}
+
+    /**
+     * Merges the given results into the first of them, which is returned.
+     * The caller must invoke {@link Grouping#postMerge} on the returned grouping.
+     *
+     * @param groupings a nonempty list of the results of the same grouping request
+     */
+    static Grouping merge(List<Grouping> groupings) {
+        if (groupings.isEmpty()) throw new IllegalArgumentException("Nothing to merge");
+        if (groupings.size() < sequentialThreshold)
+            return merge(groupings, 0, groupings.size());
+        return ForkJoinPool.commonPool().invoke(new MergeTask(groupings, 0, groupings.size()));
+    }
+
+    /** Merges the results in the given range into the first of them */
+    private static Grouping merge(List<Grouping> groupings, int from, int to) {
+        if (to - from == 1) return groupings.get(from);
+        int middle = (from + to) >>> 1;
+        Grouping merged = merge(groupings, from, middle);
+        merged.merge(merge(groupings, middle, to));
+        return merged;
+    }
+
+    private static class MergeTask extends RecursiveTask<Grouping> {
+
+        private final List<Grouping> groupings;
+        private final int from, to;
+
+        MergeTask(List<Grouping> groupings, int from, int to) {
+            this.groupings = groupings;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Grouping compute() {
+            if (to - from < sequentialThreshold) return merge(groupings, from, to);
+
+            int middle = (from + to) >>> 1;
+            MergeTask right = new MergeTask(groupings, middle, to);
+            right.fork();
+            Grouping merged = new MergeTask(groupings, from, middle).compute();
+            merged.merge(right.join());
+            return merged;
+        }
+
+    }
+
+}
@@ -33,6 +33,9 @@ public class QueryProfileProperties extends Properties {
     /** Values which has been overridden at runtime, or null if none */
     private Map<CompoundName, Object> values = null;
 
+    /** Whether the values may be shared with clones and must be copied before writing */
+    private boolean valuesShared = false;
+
     /**
      * Query profile references which has been overridden at runtime, possibly to the null value to clear values,
      * or null if none (i.e this is lazy).
@@ -138,9 +141,7 @@ public class QueryProfileProperties extends Properties {
                 references.add(0, new Pair<>(name, (CompiledQueryProfile)value)); // references set later has precedence - put first
             }
             else {
-                if (values == null)
-                    values = new HashMap<>();
-                values.put(name, value);
+                writableValues().put(name, value);
             }
         }
         catch (IllegalArgumentException e) {
@@ -155,7 +156,7 @@ public class QueryProfileProperties extends Properties {
         references.add(new Pair<>(name, null));
 
         if (values != null)
-            values.keySet().removeIf(key -> key.hasPrefix(name));
+            writableValues().keySet().removeIf(key -> key.hasPrefix(name));
     }
 
     @Override
@@ -292,9 +293,32 @@ public class QueryProfileProperties extends Properties {
     @Override
     public QueryProfileProperties clone() {
         QueryProfileProperties clone = (QueryProfileProperties)super.clone();
-        if (this.values != null)
-            clone.values = PropertyMap.cloneMap(this.values);
+        if (this.values != null) {
+            if (hasCloneableValues(this.values)) {
+                clone.values = PropertyMap.cloneMap(this.values);
+                clone.valuesShared = false;
+            }
+            else { // values are immutable or shallow copied anyway: Share the map until written
+                this.valuesShared = true;
+                clone.valuesShared = true;
+            }
+        }
         return clone;
     }
 
+    private Map<CompoundName, Object> writableValues() {
+        if (values == null)
+            values = new HashMap<>();
+        else if (valuesShared)
+            values = new HashMap<>(values);
+        valuesShared = false;
+        return values;
+    }
+
+    private static boolean hasCloneableValues(Map<CompoundName, Object> map) {
+        for (Object value : map.values())
+            if (value instanceof Cloneable) return true;
+        return false;
+    }
+
 }
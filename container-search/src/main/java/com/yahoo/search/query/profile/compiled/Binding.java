@@ -75,6 +75,9 @@ public class Binding implements Comparable<Binding> {
         this.hashCode = bindingHash;
     }
 
+    /** Returns the dimensions this binds. The returned array must not be modified. */
+    String[] dimensions() { return dimensions; }
+
     /** Returns true only if this binding is null (contains no values for its dimensions (if any) */
     public boolean isNull() { return dimensions.length == 0; }
 
@@ -9,9 +9,14 @@ import com.yahoo.search.query.profile.QueryProfileProperties;
 import com.yahoo.search.query.profile.SubstituteString;
 import com.yahoo.search.query.profile.types.QueryProfileType;
 
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,6 +46,12 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
     /** Values which are not overridable in this. Used as a set. */
     private final DimensionalMap<CompoundName, Object> unoverridables;
 
+    /** The entries of this by name prefix, used to list values */
+    private final PrefixIndex<ValueWithSource> entriesByPrefix;
+
+    /** The dimensions the values of this vary over, in sorted order */
+    private final String[] dimensions;
+
     /**
      * Creates a new query profile from an id.
      */
@@ -60,6 +71,8 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         this.types = types;
         this.references = references;
         this.unoverridables = unoverridables;
+        this.entriesByPrefix = new PrefixIndex<>(entries);
+        this.dimensions = dimensionsOf(entries);
         if ( ! id.isAnonymous())
             validateName(id.getName());
     }
@@ -133,13 +146,8 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
      */
     public Map<String, Object> listValues(CompoundName prefix, Map<String, String> context, Properties substitution) {
         Map<String, Object> values = new HashMap<>();
-        for (Map.Entry<CompoundName, DimensionalValue<ValueWithSource>> entry : entries.entrySet()) {
-            if ( ! entry.getKey().hasPrefix(prefix)) continue;
-
-            ValueWithSource valueWithSource = entry.getValue().get(context);
-            if (valueWithSource == null) continue;
-
-            Object value = valueWithSource.value();
+        for (Map.Entry<CompoundName, ValueWithSource> entry : resolveListing(prefix, context)) {
+            Object value = entry.getValue().value();
             if (value == null) continue;
 
             value = substitute(value, context, substitution);
@@ -153,13 +161,10 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
                                                               Map<String, String> context,
                                                               Properties substitution) {
         Map<String, ValueWithSource> values = new HashMap<>();
-        for (Map.Entry<CompoundName, DimensionalValue<ValueWithSource>> entry : entries.entrySet()) {
+        for (Map.Entry<CompoundName, ValueWithSource> entry : resolveListing(prefix, context)) {
             if ( entry.getKey().size() <= prefix.size()) continue;
-            if ( ! entry.getKey().hasPrefix(prefix)) continue;
-
-            ValueWithSource valueWithSource = entry.getValue().get(context);
-            if (valueWithSource == null) continue;
 
+            ValueWithSource valueWithSource = entry.getValue();
             valueWithSource = valueWithSource.withValue(substitute(valueWithSource.value(), context, substitution));
             CompoundName suffixName = entry.getKey().rest(prefix.size());
             values.put(suffixName.toString(), valueWithSource);
@@ -167,6 +172,41 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return values;
     }
 
+    /**
+     * Returns the entries having the given prefix which have a value in the given context, resolved to that value.
+     * If this has dimensions, this is memoized in the resolution of the dimension binding of the context.
+     */
+    private List<Map.Entry<CompoundName, ValueWithSource>> resolveListing(CompoundName prefix, Map<String, String> context) {
+        Map<String, String> resolutionContext = context == null ? Collections.emptyMap() : context;
+        List<Map.Entry<CompoundName, DimensionalValue<ValueWithSource>>> entries = entriesByPrefix.entriesWithPrefix(prefix);
+        if (entries.isEmpty() || dimensions.length == 0 || registry == null)
+            return resolveListing(entries, resolutionContext);
+        return resolutionOf(resolutionContext).listing(prefix, () -> resolveListing(entries, resolutionContext));
+    }
+
+    private static List<Map.Entry<CompoundName, ValueWithSource>> resolveListing(List<Map.Entry<CompoundName, DimensionalValue<ValueWithSource>>> entries,
+                                                                             Map<String, String> context) {
+        List<Map.Entry<CompoundName, ValueWithSource>> listing = new ArrayList<>();
+        for (Map.Entry<CompoundName, DimensionalValue<ValueWithSource>> entry : entries) {
+            ValueWithSource valueWithSource = entry.getValue().get(context);
+            if (valueWithSource == null) continue;
+            listing.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), valueWithSource));
+        }
+        return Collections.unmodifiableList(listing);
+    }
+
+    /** Returns the resolution of this for the dimension binding of the given context, cached by the registry of this */
+    private ResolutionCache.Resolution resolutionOf(Map<String, String> context) {
+        return registry.resolutions().get(this, dimensions, context);
+    }
+
+    private static String[] dimensionsOf(DimensionalMap<CompoundName, ValueWithSource> entries) {
+        Set<String> dimensions = new TreeSet<>();
+        for (DimensionalValue<ValueWithSource> value : entries.values())
+            value.addDimensionsTo(dimensions);
+        return dimensions.toArray(new String[0]);
+    }
+
     public final Object get(String name) {
         return get(name, Collections.emptyMap());
     }
@@ -177,11 +217,24 @@ public class CompiledQueryProfile extends AbstractComponent implements Cloneable
         return get(new CompoundName(name), context, substitution);
     }
     public final Object get(CompoundName name, Map<String, String> context, Properties substitution) {
-        ValueWithSource value = entries.get(name, context);
+        ValueWithSource value = resolve(name, context);
         if (value == null) return null;
         return substitute(value.value(), context, substitution);
     }
 
+    /**
+     * Returns the value of the given name in the given context, or null if none.
+     * If this has dimensions, this is memoized in the resolution of the dimension binding of the context.
+     */
+    private ValueWithSource resolve(CompoundName name, Map<String, String> context) {
+        if (dimensions.length == 0 || registry == null) return entries.get(name, context);
+
+        DimensionalValue<ValueWithSource> variants = entries.variants(name);
+        if (variants == null) return null;
+        Map<String, String> resolutionContext = context == null ? Collections.emptyMap() : context;
+        return resolutionOf(resolutionContext).value(name, () -> variants.get(resolutionContext));
+    }
+
     private Object substitute(Object value, Map<String, String> context, Properties substitution) {
         if (value == null) return value;
         if (substitution == null) return value;
@@ -16,8 +16,14 @@ public class CompiledQueryProfileRegistry extends ComponentRegistry<CompiledQuer
     /** The empty, frozen registry */
     public static final CompiledQueryProfileRegistry empty = CompiledQueryProfileRegistry.createFrozen();
     
+    /** The max number of dimension bindings to keep the resolved values of, see {@link ResolutionCache} */
+    private static final int maxResolutions = 200;
+
     private final QueryProfileTypeRegistry typeRegistry;
 
+    /** The values of the profiles of this resolved for particular dimension bindings. Replaced with this on reconfiguration. */
+    private final ResolutionCache resolutions = new ResolutionCache(maxResolutions);
+
     /** Creates a compiled query profile registry with no types */
     public CompiledQueryProfileRegistry() {
         this(QueryProfileTypeRegistry.emptyFrozen());
@@ -34,6 +40,8 @@ public class CompiledQueryProfileRegistry extends ComponentRegistry<CompiledQuer
 
     public QueryProfileTypeRegistry getTypeRegistry() { return typeRegistry; }
 
+    ResolutionCache resolutions() { return resolutions; }
+
     /**
      * <p>Returns a query profile for the given request string, or null if a suitable one is not found.</p>
      *
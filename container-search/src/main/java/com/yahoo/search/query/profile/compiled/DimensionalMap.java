@@ -4,6 +4,7 @@ package com.yahoo.search.query.profile.compiled;
 import com.google.common.collect.ImmutableMap;
 import com.yahoo.search.query.profile.DimensionBinding;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -31,11 +32,21 @@ public class DimensionalMap<KEY, VALUE> {
         return variants.get(context);
     }
 
+    /** Returns the variants of the value of this key, or null if none */
+    DimensionalValue<VALUE> variants(KEY key) {
+        return values.get(key);
+    }
+
     /** Returns the set of dimensional entries across all contexts. */
     public Set<Map.Entry<KEY, DimensionalValue<VALUE>>> entrySet() {
         return values.entrySet();
     }
 
+    /** Returns the dimensional values of this across all keys. */
+    Collection<DimensionalValue<VALUE>> values() {
+        return values.values();
+    }
+
     /** Returns true if this is empty for all contexts. */
     public boolean isEmpty() {
         return values.isEmpty();
@@ -6,6 +6,7 @@ import com.yahoo.search.query.profile.DimensionBinding;
 import com.yahoo.search.query.profile.SubstituteString;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,6 +51,12 @@ public class DimensionalValue<VALUE> {
 
     public boolean isEmpty() { return values.isEmpty(); }
 
+    /** Adds the dimensions any of the values of this depends on to the given set */
+    void addDimensionsTo(Set<String> dimensions) {
+        for (Value<VALUE> value : values)
+            dimensions.addAll(Arrays.asList(value.binding().dimensions()));
+    }
+
     @Override
     public String toString() {
         return values.toString();
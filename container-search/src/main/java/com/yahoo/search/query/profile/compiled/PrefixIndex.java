@@ -0,0 +1,41 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the entries of a dimensional map by every name prefix of their keys, such that the entries
+ * having a given prefix can be listed in time proportional to the number of such entries,
+ * rather than the size of the map.
+ *
+ * Prefixes are taken on the component level, as in {@link CompoundName#hasPrefix}.
+ *
+ * This is immutable.
+ */
+class PrefixIndex<VALUE> {
+
+    private final Map<CompoundName, List<Map.Entry<CompoundName, DimensionalValue<VALUE>>>> entriesByPrefix;
+
+    PrefixIndex(DimensionalMap<CompoundName, VALUE> map) {
+        Map<CompoundName, List<Map.Entry<CompoundName, DimensionalValue<VALUE>>>> entriesByPrefix = new HashMap<>();
+        for (Map.Entry<CompoundName, DimensionalValue<VALUE>> entry : map.entrySet()) {
+            CompoundName name = entry.getKey();
+            for (int i = 0; i <= name.size(); i++)
+                entriesByPrefix.computeIfAbsent(name.first(i), __ -> new ArrayList<>()).add(entry);
+        }
+        entriesByPrefix.replaceAll((prefix, entries) -> List.copyOf(entries));
+        this.entriesByPrefix = Map.copyOf(entriesByPrefix);
+    }
+
+    /** Returns the entries whose key has the given prefix, including the key equal to the prefix, if any */
+    List<Map.Entry<CompoundName, DimensionalValue<VALUE>>> entriesWithPrefix(CompoundName prefix) {
+        return entriesByPrefix.getOrDefault(prefix, Collections.emptyList());
+    }
+
+}
@@ -0,0 +1,152 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the values of compiled query profiles resolved for particular bindings of the dimensions
+ * of the profile, such that a value or listing can be looked up by a single hash lookup instead of
+ * matching each of its variants against the context.
+ *
+ * Values and listings are resolved lazily, the first time each is looked up for a binding.
+ * When the cache is full, resolutions of arbitrary bindings are evicted.
+ *
+ * This is multithread safe, and lookups of bindings which are already resolved take no lock and allocate nothing.
+ */
+class ResolutionCache {
+
+    /** A key reused by each thread to look up resolutions */
+    private static final ThreadLocal<Key> lookupKey = ThreadLocal.withInitial(Key::new);
+
+    private final Map<Key, Resolution> resolutions = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    ResolutionCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("Resolution cache size must be positive, got " + maxSize);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the resolution of the given profile for the values of its dimensions in the given context
+     *
+     * @param profile the profile to return the resolution of
+     * @param dimensions the dimensions of the profile
+     * @param context the context binding the dimensions
+     */
+    Resolution get(CompiledQueryProfile profile, String[] dimensions, Map<String, String> context) {
+        Key lookup = lookupKey.get().bind(profile, dimensions, context);
+        Resolution resolution = resolutions.get(lookup);
+        if (resolution != null) {
+            lookup.clear();
+            return resolution;
+        }
+
+        Key key = lookup.copy();
+        lookup.clear();
+        resolution = resolutions.computeIfAbsent(key, __ -> new Resolution());
+        evictIfFull(key);
+        return resolution;
+    }
+
+    /** Removes arbitrary resolutions, except the one of the given key, until this is no larger than its max size */
+    private void evictIfFull(Key added) {
+        for (Iterator<Key> i = resolutions.keySet().iterator(); resolutions.size() > maxSize && i.hasNext(); ) {
+            if ( ! i.next().equals(added))
+                i.remove();
+        }
+    }
+
+    int size() { return resolutions.size(); }
+
+    /**
+     * The values and listings of a profile resolved for one binding of its dimensions.
+     * Only names and prefixes present in the profile should be resolved through this, which bounds its size.
+     */
+    static class Resolution {
+
+        private final Map<CompoundName, Optional<ValueWithSource>> values = new ConcurrentHashMap<>();
+        private final Map<CompoundName, List<Map.Entry<CompoundName, ValueWithSource>>> listings = new ConcurrentHashMap<>();
+
+        /** Returns the value of the given name, or null if none, using the given resolver if it is not yet resolved */
+        ValueWithSource value(CompoundName name, Supplier<ValueWithSource> resolver) {
+            Optional<ValueWithSource> value = values.get(name);
+            if (value == null) {
+                value = Optional.ofNullable(resolver.get());
+                values.put(name, value);
+            }
+            return value.orElse(null);
+        }
+
+        /** Returns the listing of the given prefix, using the given resolver if it is not yet resolved */
+        List<Map.Entry<CompoundName, ValueWithSource>> listing(CompoundName prefix,
+                                                              Supplier<List<Map.Entry<CompoundName, ValueWithSource>>> resolver) {
+            List<Map.Entry<CompoundName, ValueWithSource>> listing = listings.get(prefix);
+            if (listing == null) {
+                listing = resolver.get();
+                listings.put(prefix, listing);
+            }
+            return listing;
+        }
+
+    }
+
+    /** A profile and the values of its dimensions. Keys in the cache are never modified. */
+    private static final class Key {
+
+        private CompiledQueryProfile profile;
+        private String[] dimensionValues;
+        private int hashCode;
+
+        Key() {
+            this.dimensionValues = new String[0];
+        }
+
+        private Key(CompiledQueryProfile profile, String[] dimensionValues, int hashCode) {
+            this.profile = profile;
+            this.dimensionValues = dimensionValues;
+            this.hashCode = hashCode;
+        }
+
+        /** Sets this to the given profile and the values of the given dimensions in the given context, and returns this */
+        Key bind(CompiledQueryProfile profile, String[] dimensions, Map<String, String> context) {
+            if (dimensionValues.length != dimensions.length)
+                dimensionValues = new String[dimensions.length];
+            for (int i = 0; i < dimensions.length; i++)
+                dimensionValues[i] = context.get(dimensions[i]);
+            this.profile = profile;
+            this.hashCode = 31 * System.identityHashCode(profile) + Arrays.hashCode(dimensionValues);
+            return this;
+        }
+
+        /** Releases the references of this to a profile and context values */
+        void clear() {
+            profile = null;
+            Arrays.fill(dimensionValues, null);
+        }
+
+        Key copy() {
+            return new Key(profile, dimensionValues.clone(), hashCode);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key)o;
+            return profile == other.profile && Arrays.equals(dimensionValues, other.dimensionValues);
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+    }
+
+}
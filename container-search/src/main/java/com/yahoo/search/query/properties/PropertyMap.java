@@ -10,7 +10,8 @@ import java.util.HashMap;
  * A Map backing of Properties.
  * <p>
  * When this is cloned it will deep copy not only the model object map, but also each
- * clonable member inside the map.
+ * clonable member inside the map. If there are no such members the map is instead shared with the clone
+ * until either is written to.
  * <p>
  * Subclassing is supported, a hook can be implemented to provide conditional inclusion in the map.
  * By default - all properties are accepted, so set is never propagated.
@@ -26,12 +27,15 @@ public class PropertyMap extends Properties {
     /** The properties of this */
     private Map<CompoundName, Object> properties = new LinkedHashMap<>();
 
+    /** Whether the properties of this may be shared with clones and must be copied before writing */
+    private boolean shared = false;
+
     public void set(CompoundName name, Object value, Map<String, String> context) {
         if (value == null) // Both clear and forward
-            properties.remove(name);
+            writableProperties().remove(name);
 
         if (shouldSet(name, value))
-            properties.put(name, value);
+            writableProperties().put(name, value);
         else
             super.set(name, value, context);
     }
@@ -53,12 +57,26 @@ public class PropertyMap extends Properties {
      * Returns a direct reference to the map containing the properties set in this instance.
      */
     public Map<CompoundName, Object> propertyMap() {
+        return writableProperties();
+    }
+
+    private Map<CompoundName, Object> writableProperties() {
+        if (shared) {
+            properties = new LinkedHashMap<>(properties);
+            shared = false;
+        }
         return properties;
     }
 
     @Override
     public PropertyMap clone() {
         PropertyMap clone = (PropertyMap)super.clone();
+        if ( ! hasCloneableValues(properties)) {
+            this.shared = true;
+            clone.shared = true;
+            return clone;
+        }
+        clone.shared = false;
         clone.properties = new HashMap<>();
         for (Map.Entry<CompoundName, Object> entry : this.properties.entrySet()) {
             Object cloneValue = cloneHelper.clone(entry.getValue());
@@ -82,6 +100,13 @@ public class PropertyMap extends Properties {
         return map;
     }
 
+    /** Returns whether any values in the given map must be deep copied when it is cloned */
+    private static boolean hasCloneableValues(Map<CompoundName, Object> map) {
+        for (Object value : map.values())
+            if (value instanceof Cloneable) return true;
+        return false;
+    }
+
     /** Clones this object if it is clonable, and the clone is public. Returns null if not */
     public static Object clone(Object object) {
         return cloneHelper.clone(object);
@@ -10,7 +10,6 @@ import com.yahoo.search.Result;
 import com.yahoo.search.Searcher;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.grouping.GroupingRequest;
-import com.yahoo.search.query.QueryTree;
 import com.yahoo.search.query.parser.Parsable;
 import com.yahoo.search.query.parser.ParserEnvironment;
 import com.yahoo.search.query.parser.ParserFactory;
@@ -21,6 +20,7 @@ import com.yahoo.yolean.chain.After;
 import com.yahoo.yolean.chain.Before;
 import com.yahoo.yolean.chain.Provides;
 
+import java.util.Optional;
 import java.util.logging.Logger;
 
 /**
@@ -40,8 +40,17 @@ public class MinimalQueryInserter extends Searcher {
 
     private static final CompoundName MAX_HITS = new CompoundName("maxHits");
     private static final CompoundName MAX_OFFSET = new CompoundName("maxOffset");
+
+    /** Set to true to reuse the parse of earlier queries with the same YQL string and parsing settings */
+    public static final CompoundName PARSE_CACHE = new CompoundName("yql.parseCache");
+
+    /** The max number of YQL parses to cache */
+    private static final int parseCacheSize = 1000;
+
     private static Logger log = Logger.getLogger(MinimalQueryInserter.class.getName());
 
+    private final YqlParseCache parseCache = new YqlParseCache(parseCacheSize);
+
     @Inject
     public MinimalQueryInserter(Linguistics linguistics) {
         // Warmup is needed to avoid a large 400ms init cost during first execution of yql code.
@@ -55,7 +64,7 @@ public class MinimalQueryInserter extends Searcher {
     }
     private static boolean warmup(Linguistics linguistics) {
         Query query = new Query("search/?yql=select%20*%20from%20sources%20where%20title%20contains%20'xyz';");
-        Result result = insertQuery(query, new ParserEnvironment().setLinguistics(linguistics));
+        Result result = insertQuery(query, new ParserEnvironment().setLinguistics(linguistics), Optional.empty());
         if (result != null) {
             log.warning("Warmup code trigger an error. Error = " + result.toString());
             return false;
@@ -67,50 +76,60 @@ public class MinimalQueryInserter extends Searcher {
         return true;
     }
 
-    private static Result insertQuery(Query query, ParserEnvironment env) {
+    private static Result insertQuery(Query query, ParserEnvironment env, Optional<YqlParseCache> parseCache) {
         YqlParser parser = (YqlParser) ParserFactory.newInstance(Query.Type.YQL, env);
         parser.setQueryParser(false);
         parser.setUserQuery(query);
-        QueryTree newTree;
+        YqlParseCache.Parsed parsed;
         try {
             Parsable parsable = Parsable.fromQueryModel(query.getModel()).setQuery(query.properties().getString(YQL));
-            newTree = parser.parse(parsable);
+            YqlParseCache.Key key = YqlParseCache.keyOf(parsable, env);
+            Optional<YqlParseCache.Parsed> cached = parseCache.flatMap(cache -> cache.get(key));
+            if (cached.isPresent()) {
+                parsed = cached.get();
+                query.trace("Using cached parse of YQL+ query", true, 3);
+            }
+            else {
+                YqlParseCache.Parsed fresh = YqlParseCache.Parsed.from(parser, parser.parse(parsable).getRoot());
+                parseCache.ifPresent(cache -> cache.put(key, fresh, parser));
+                parsed = fresh;
+            }
         } catch (RuntimeException e) {
             return new Result(query, ErrorMessage.createInvalidQueryParameter("Could not instantiate query from YQL", e));
         }
-        if (parser.getOffset() != null) {
+        if (parsed.offset != null) {
             int maxHits = query.properties().getInteger(MAX_HITS);
             int maxOffset = query.properties().getInteger(MAX_OFFSET);
-            if (parser.getOffset() > maxOffset) {
-                return new Result(query, ErrorMessage.createInvalidQueryParameter("Requested offset " + parser.getOffset()
+            if (parsed.offset > maxOffset) {
+                return new Result(query, ErrorMessage.createInvalidQueryParameter("Requested offset " + parsed.offset
                         + ", but the max offset allowed is " + maxOffset + "."));
             }
-            if (parser.getHits() > maxHits) {
-                return new Result(query, ErrorMessage.createInvalidQueryParameter("Requested " + parser.getHits()
+            if (parsed.hits > maxHits) {
+                return new Result(query, ErrorMessage.createInvalidQueryParameter("Requested " + parsed.hits
                         + " hits returned, but max hits allowed is " + maxHits + "."));
             }
         }
-        query.getModel().getQueryTree().setRoot(newTree.getRoot());
-        query.getPresentation().getSummaryFields().addAll(parser.getYqlSummaryFields());
-        for (VespaGroupingStep step : parser.getGroupingSteps()) {
+        query.getModel().getQueryTree().setRoot(parsed.root);
+        query.getPresentation().getSummaryFields().addAll(parsed.summaryFields);
+        for (VespaGroupingStep step : parsed.groupingSteps) {
             GroupingRequest.newInstance(query)
                     .setRootOperation(step.getOperation())
                     .continuations().addAll(step.continuations());
         }
-        if (parser.getYqlSources().size() == 0) {
+        if (parsed.sources.size() == 0) {
             query.getModel().getSources().clear();
         } else {
-            query.getModel().getSources().addAll(parser.getYqlSources());
+            query.getModel().getSources().addAll(parsed.sources);
         }
-        if (parser.getOffset() != null) {
-            query.setOffset(parser.getOffset());
-            query.setHits(parser.getHits());
+        if (parsed.offset != null) {
+            query.setOffset(parsed.offset);
+            query.setHits(parsed.hits);
         }
-        if (parser.getTimeout() != null) {
-            query.setTimeout(parser.getTimeout().longValue());
+        if (parsed.timeout != null) {
+            query.setTimeout(parsed.timeout.longValue());
         }
-        if (parser.getSorting() != null) {
-            query.getRanking().setSorting(parser.getSorting());
+        if (parsed.sorting != null) {
+            query.getRanking().setSorting(parsed.sorting);
         }
         query.trace("YQL+ query parsed", true, 2);
         return null;
@@ -120,8 +139,13 @@ public class MinimalQueryInserter extends Searcher {
     public Result search(Query query, Execution execution) {
         if (query.properties().get(YQL) == null) return execution.search(query);
 
-        Result result = insertQuery(query, ParserEnvironment.fromExecutionContext(execution.context()));
+        Optional<YqlParseCache> cache = query.properties().getBoolean(PARSE_CACHE, false) ? Optional.of(parseCache)
+                                                                                            : Optional.empty();
+        Result result = insertQuery(query, ParserEnvironment.fromExecutionContext(execution.context()), cache);
         return (result == null) ? execution.search(query) : result;
     }
 
+    /** Returns the number of parsed queries cached by this */
+    int parseCacheSize() { return parseCache.size(); }
+
 }
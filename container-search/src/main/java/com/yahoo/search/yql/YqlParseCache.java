@@ -0,0 +1,162 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.yql;
+
+import com.yahoo.language.Language;
+import com.yahoo.prelude.query.Item;
+import com.yahoo.search.grouping.Continuation;
+import com.yahoo.search.query.Sorting;
+import com.yahoo.search.query.parser.Parsable;
+import com.yahoo.search.query.parser.ParserEnvironment;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A size bounded cache of parsed YQL queries, used by the {@link MinimalQueryInserter} to avoid parsing
+ * the same YQL string repeatedly. Only parses which depend on nothing but the YQL string and the parsing
+ * settings of the query model are cached, not those reading query properties or the user query.
+ *
+ * As queries modify the structures produced by parsing, these are copied both when added to and
+ * retrieved from this.
+ *
+ * This class is multithread safe.
+ */
+class YqlParseCache {
+
+    private final Map<Key, Parsed> entries;
+
+    YqlParseCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("YQL parse cache size must be positive, got " + maxSize);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Parsed> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /** Returns a copy of the parsed query cached for this key, if any */
+    Optional<Parsed> get(Key key) {
+        Parsed parsed;
+        synchronized (this) {
+            parsed = entries.get(key);
+        }
+        return Optional.ofNullable(parsed).map(Parsed::copy);
+    }
+
+    /** Caches a copy of the given parsed query, if it may be reused for other queries */
+    void put(Key key, Parsed parsed, YqlParser parser) {
+        if (parser.readUserQuery()) return;
+        Parsed copy = parsed.copy();
+        synchronized (this) {
+            entries.put(key, copy);
+        }
+    }
+
+    synchronized int size() { return entries.size(); }
+
+    /** Returns the key of the given parsable in the given environment */
+    static Key keyOf(Parsable parsable, ParserEnvironment environment) {
+        return new Key(parsable, environment);
+    }
+
+    /** The output of parsing a YQL query */
+    static final class Parsed {
+
+        final Item root;
+        final Set<String> summaryFields;
+        final List<VespaGroupingStep> groupingSteps;
+        final Set<String> sources;
+        final Integer offset;
+        final Integer hits;
+        final Integer timeout;
+        final Sorting sorting;
+
+        private Parsed(Item root, Set<String> summaryFields, List<VespaGroupingStep> groupingSteps, Set<String> sources,
+                       Integer offset, Integer hits, Integer timeout, Sorting sorting) {
+            this.root = root;
+            this.summaryFields = summaryFields;
+            this.groupingSteps = groupingSteps;
+            this.sources = sources;
+            this.offset = offset;
+            this.hits = hits;
+            this.timeout = timeout;
+            this.sorting = sorting;
+        }
+
+        /** Returns the output of the latest parse done by the given parser, which produced the given root */
+        static Parsed from(YqlParser parser, Item root) {
+            return new Parsed(root, parser.getYqlSummaryFields(), parser.getGroupingSteps(), parser.getYqlSources(),
+                              parser.getOffset(), parser.getHits(), parser.getTimeout(), parser.getSorting());
+        }
+
+        /** Returns a deep copy of this */
+        Parsed copy() {
+            List<VespaGroupingStep> groupingStepsCopy = new ArrayList<>(groupingSteps.size());
+            for (VespaGroupingStep step : groupingSteps) {
+                VespaGroupingStep stepCopy = new VespaGroupingStep(step.getOperation().copy(null));
+                for (Continuation continuation : step.continuations())
+                    stepCopy.continuations().add(continuation.copy());
+                groupingStepsCopy.add(stepCopy);
+            }
+            return new Parsed(root.clone(), Set.copyOf(summaryFields), groupingStepsCopy, Set.copyOf(sources),
+                              offset, hits, timeout, sorting == null ? null : sorting.clone());
+        }
+
+    }
+
+    /** The YQL string and model settings a YQL query is parsed with */
+    static final class Key {
+
+        private final String yql;
+        private final String defaultIndex;
+        private final Language language;
+        private final Optional<Language> explicitLanguage;
+        private final Set<String> sources;
+        private final Set<String> restrict;
+        private final ParserEnvironment environment;
+        private final int hashCode;
+
+        private Key(Parsable parsable, ParserEnvironment environment) {
+            this.yql = parsable.getQuery();
+            this.defaultIndex = parsable.getDefaultIndexName();
+            this.language = parsable.getLanguage();
+            this.explicitLanguage = parsable.getExplicitLanguage();
+            this.sources = Set.copyOf(parsable.getSources());
+            this.restrict = Set.copyOf(parsable.getRestrict());
+            this.environment = environment;
+            this.hashCode = Objects.hash(yql, defaultIndex, language, explicitLanguage, sources, restrict);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key) o;
+            return Objects.equals(yql, other.yql)
+                   && Objects.equals(defaultIndex, other.defaultIndex)
+                   && language == other.language
+                   && explicitLanguage.equals(other.explicitLanguage)
+                   && sources.equals(other.sources)
+                   && restrict.equals(other.restrict)
+                   && sameEnvironment(environment, other.environment);
+        }
+
+        /** Parses depend on the index facts and linguistics, which are replaced on reconfiguration */
+        private static boolean sameEnvironment(ParserEnvironment a, ParserEnvironment b) {
+            return a.getIndexFacts() == b.getIndexFacts()
+                   && a.getLinguistics() == b.getLinguistics()
+                   && a.getSpecialTokens() == b.getSpecialTokens();
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+    }
+
+}
@@ -200,6 +200,7 @@ public class YqlParser implements Parser {
     private Set<String> docTypes;
     private Sorting sorting;
     private boolean queryParser = true;
+    private boolean readUserQuery = false;
     private final Deque<OperatorNode<?>> annotationStack = new ArrayDeque<>();
     private final ParserEnvironment environment;
 
@@ -247,6 +248,7 @@ public class YqlParser implements Parser {
         hits = null;
         offset = null;
         timeout = null;
+        readUserQuery = false;
         // userQuery set prior to calling this
         currentlyParsing = query;
         docTypes = null;
@@ -647,6 +649,7 @@ public class YqlParser implements Parser {
         Preconditions.checkState(userQuery != null,
                                  "User query must be set before trying to build complete query "
                                  + "tree including user query.");
+        readUserQuery = true;
         return userQuery.getModel().getQueryTree().getRoot();
     }
 
@@ -699,6 +702,7 @@ public class YqlParser implements Parser {
             case VARREF:
                 Preconditions.checkState(userQuery != null,
                                          "properties must be available when trying to fetch user input");
+                readUserQuery = true;
                 return userQuery.properties().getString(operator.getArgument(0, String.class));
             default:
                 throw newUnexpectedArgumentException(operator.getOperator(),
@@ -1519,6 +1523,12 @@ public class YqlParser implements Parser {
      */
     public Sorting getSorting() { return sorting; }
 
+    /**
+     * Returns whether the latest parsed query read the user query or its properties, such that the result
+     * depends on more than the parsed string and the model settings it was parsed with.
+     */
+    boolean readUserQuery() { return readUserQuery; }
+
     Set<String> getDocTypes() { return docTypes; }
 
     Set<String> getYqlSources() { return yqlSources; }
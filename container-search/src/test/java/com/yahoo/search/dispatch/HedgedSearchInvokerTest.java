@@ -0,0 +1,224 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.searchchain.Execution;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HedgedSearchInvokerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory("test-hedging-"));
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void requireThatBackupIsNotUsedWhenPrimaryIsFast() throws IOException {
+        AtomicBoolean backupRequested = new AtomicBoolean(false);
+        TestInvoker primary = new TestInvoker(100, false, null, null);
+        Executor noThreads = command -> fail("A query which is not hedged runs in the calling thread");
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(primary, 10_000, () -> {
+            backupRequested.set(true);
+            return Optional.empty();
+        }, noThreads);
+
+        Query query = new Query("search/?query=test&timeout=20s");
+        Result result = invoker.search(query, null);
+        invoker.close();
+        assertEquals(100, result.getTotalHitCount());
+        assertFalse(backupRequested.get());
+        assertEquals(0, primary.closed.getCount());
+    }
+
+    @Test
+    public void requireThatBackupResultIsUsedWhenPrimaryIsSlow() throws Exception {
+        CountDownLatch primaryBlocker = new CountDownLatch(1);
+        TestInvoker primary = new TestInvoker(100, false, primaryBlocker, null);
+        TestInvoker backup = new TestInvoker(200, false, null, null);
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(primary, 10, () -> Optional.of(backup), executor);
+
+        Query query = new Query("search/?query=test&timeout=10s");
+        Result result = invoker.search(query, null);
+        invoker.close();
+        assertSame(query, result.getQuery());
+        assertNotSame("The backup searches its own clone of the query", query, backup.query);
+        assertEquals(200, result.getTotalHitCount());
+        assertTrue(backup.closed.await(10, TimeUnit.SECONDS));
+        assertEquals("The primary is closed when it answers", 1, primary.closed.getCount());
+
+        primaryBlocker.countDown();
+        assertTrue(primary.closed.await(10, TimeUnit.SECONDS));
+        assertTrue("The late primary is recorded as successful", primary.finalStatus);
+        assertFalse("The late primary does not touch the query", primary.searched.get());
+    }
+
+    @Test
+    public void requireThatPrimaryIsRecordedAsFailedWhenItDoesNotAnswerBeforeTimeout() throws Exception {
+        CountDownLatch primaryBlocker = new CountDownLatch(1);
+        TestInvoker primary = new TestInvoker(100, false, primaryBlocker, null);
+        TestInvoker backup = new TestInvoker(200, false, null, null);
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(primary, 10, () -> Optional.of(backup), executor);
+
+        Result result = invoker.search(new Query("search/?query=test&timeout=500ms"), null);
+        invoker.close();
+        assertEquals(200, result.getTotalHitCount());
+        assertTrue(primary.closed.await(10, TimeUnit.SECONDS));
+        assertFalse(primary.finalStatus);
+        primaryBlocker.countDown();
+    }
+
+    @Test
+    public void requireThatBackupResultIsUsedWhenPrimaryFails() throws Exception {
+        CountDownLatch primaryAnswers = new CountDownLatch(1);
+        CountDownLatch primaryResultProduced = new CountDownLatch(1);
+        TestInvoker primary = new TestInvoker(100, true, primaryAnswers, primaryResultProduced);
+        TestInvoker backup = new TestInvoker(200, false, null, null) {
+            @Override
+            protected InvokerResult getSearchResult(Execution execution) {
+                primaryAnswers.countDown();
+                await(primaryResultProduced);
+                return super.getSearchResult(execution);
+            }
+        };
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(primary, 10, () -> Optional.of(backup), executor);
+
+        Result result = invoker.search(new Query("search/?query=test&timeout=10s"), null);
+        invoker.close();
+        assertTrue(primary.searched.get());
+        assertNull(result.hits().getError());
+        assertEquals(200, result.getTotalHitCount());
+    }
+
+    @Test
+    public void requireThatPrimaryResultIsUsedWhenBackupFails() throws Exception {
+        CountDownLatch primaryAnswers = new CountDownLatch(1);
+        TestInvoker primary = new TestInvoker(100, false, primaryAnswers, null);
+        TestInvoker backup = new TestInvoker(200, true, null, null) {
+            @Override
+            protected InvokerResult getSearchResult(Execution execution) {
+                primaryAnswers.countDown();
+                return super.getSearchResult(execution);
+            }
+        };
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(primary, 10, () -> Optional.of(backup), executor);
+
+        Result result = invoker.search(new Query("search/?query=test&timeout=10s"), null);
+        invoker.close();
+        assertNull(result.hits().getError());
+        assertEquals(100, result.getTotalHitCount());
+    }
+
+    @Test
+    public void requireThatQueryIsNotHedgedWhenExecutorIsFull() throws Exception {
+        CountDownLatch primaryAnswers = new CountDownLatch(1);
+        TestInvoker primary = new TestInvoker(100, false, primaryAnswers, null);
+        TestInvoker backup = new TestInvoker(200, false, null, null);
+        Executor full = command -> {
+            primaryAnswers.countDown();
+            throw new RejectedExecutionException("Full");
+        };
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(primary, 10, () -> Optional.of(backup), full);
+
+        Result result = invoker.search(new Query("search/?query=test&timeout=10s"), null);
+        invoker.close();
+        assertEquals(100, result.getTotalHitCount());
+        assertNull("The backup was never sent", backup.query);
+        assertTrue(backup.closed.await(10, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if ( ! latch.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("Timed out");
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** An invoker which signals that its response is available once the given blocker, if any, is released */
+    private static class TestInvoker extends SearchInvoker {
+
+        private final long totalHits;
+        private final boolean error;
+        private final CountDownLatch blocker;
+        private final CountDownLatch resultProduced;
+        private final AtomicBoolean searched = new AtomicBoolean(false);
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile Query query;
+        private volatile boolean finalStatus = false;
+
+        TestInvoker(long totalHits, boolean error, CountDownLatch blocker, CountDownLatch resultProduced) {
+            super(Optional.empty());
+            this.totalHits = totalHits;
+            this.error = error;
+            this.blocker = blocker;
+            this.resultProduced = resultProduced;
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) {
+            this.query = query;
+            if (blocker == null) {
+                responseAvailable();
+            } else {
+                Thread responder = new Thread(() -> {
+                    await(blocker);
+                    responseAvailable();
+                });
+                responder.setDaemon(true);
+                responder.start();
+            }
+            return context;
+        }
+
+        @Override
+        protected InvokerResult getSearchResult(Execution execution) {
+            searched.set(true);
+            InvokerResult result = error ? errorResult(query, ErrorMessage.createBackendCommunicationError("Failed"))
+                                         : new InvokerResult(query, 0);
+            if ( ! error) {
+                result.getResult().setTotalHitCount(totalHits);
+                result.getResult().setCoverage(new Coverage(totalHits, totalHits, 1));
+            }
+            if (resultProduced != null) resultProduced.countDown();
+            return result;
+        }
+
+        @Override
+        protected void setFinalStatus(boolean success) {
+            finalStatus = success;
+            super.setFinalStatus(success);
+        }
+
+        @Override
+        protected void release() {
+            closed.countDown();
+        }
+
+    }
+
+}
@@ -270,6 +270,112 @@ public class InterleavedSearchInvokerTest {
         assertEquals(3, result.getQuery().getHits());
     }
 
+    @Test
+    public void requireThatMergeOfManyNodesSkipsDuplicatesAndObeysWindow() {
+        List<List<LeanHit>> partials = new ArrayList<>();
+        partials.add(createLeanHits(A5, 0));
+        partials.add(createLeanHits(B5, 1));
+        partials.add(createLeanHits(A5, 0));
+        partials.add(createLeanHits(Arrays.asList(10.0, 5.0), 2));
+
+        List<LeanHit> merged = new ArrayList<>();
+        InterleavedSearchInvoker.mergeLeanHits(partials, 0, 20, merged);
+        assertEquals(12, merged.size());
+        assertEquals(11.0, merged.get(0).getRelevance(), DELTA);
+        assertEquals(10.0, merged.get(1).getRelevance(), DELTA);
+        assertEquals(1.0, merged.get(11).getRelevance(), DELTA);
+
+        merged.clear();
+        InterleavedSearchInvoker.mergeLeanHits(partials, 3, 4, merged);
+        assertEquals(4, merged.size());
+        assertEquals(8.5, merged.get(0).getRelevance(), DELTA);
+        assertEquals(7.0, merged.get(3).getRelevance(), DELTA);
+    }
+
+    @Test
+    public void requireThatSummariesOfProvisionalWindowArePrefetchedWhileWaitingForTheLastNode() throws IOException {
+        SearchCluster cluster = new MockSearchCluster("!", 1, 3);
+        List<SearchInvoker> invokers = new ArrayList<>();
+        invokers.add(createInvoker(A5, 0));
+        invokers.add(createInvoker(B5, 1));
+        invokers.add(createInvoker(Arrays.asList(10.0, 5.0, 4.0, 0.5, 0.2), 2));
+        Query query = new Query("search/?query=test&hits=10");
+        MockFillInvoker fillInvoker = new MockFillInvoker();
+        SummaryPrefetcher prefetcher = new SummaryPrefetcher(query, null, result -> fillInvoker);
+        InterleavedSearchInvoker invoker = new InterleavedSearchInvoker(invokers, cluster, Collections.emptySet(), Optional.of(prefetcher));
+        invokers.forEach(invoker::responseAvailable);
+
+        Result result = invoker.search(query, null);
+
+        assertEquals("The window of the first two nodes was prefetched", 10, fillInvoker.requestedHits);
+        assertEquals(10, result.hits().size());
+        int filled = 0;
+        for (Hit hit : result.hits()) {
+            boolean fromLastNode = ((FastHit) hit).getDistributionKey() == 2;
+            assertEquals(! fromLastNode, hit.isFilled(null));
+            if (hit.isFilled(null)) filled++;
+        }
+        assertEquals(7, filled);
+    }
+
+    @Test
+    public void requireThatPrefetchesOfStaleWindowsAreNotAwaited() throws IOException {
+        SearchCluster cluster = new MockSearchCluster("!", 1, 4);
+        List<SearchInvoker> invokers = new ArrayList<>();
+        invokers.add(createInvoker(Arrays.asList(1.0, 0.9), 0));
+        invokers.add(createInvoker(Arrays.asList(0.8, 0.7), 1));
+        invokers.add(createInvoker(Arrays.asList(5.0, 4.0), 2));
+        invokers.add(createInvoker(Arrays.asList(3.0, 2.0), 3));
+        Query query = new Query("search/?query=test&hits=2");
+        MockFillInvoker fillInvoker = new MockFillInvoker();
+        SummaryPrefetcher prefetcher = new SummaryPrefetcher(query, null, result -> fillInvoker);
+        InterleavedSearchInvoker invoker = new InterleavedSearchInvoker(invokers, cluster, Collections.emptySet(), Optional.of(prefetcher));
+        invokers.forEach(invoker::responseAvailable);
+
+        Result result = invoker.search(query, null);
+
+        assertEquals("The windows after the second and third node were prefetched", 4, fillInvoker.requestedHits);
+        assertEquals("Only the prefetch of the final window was awaited", 2, fillInvoker.awaitedHits);
+        assertEquals("All prefetches were closed", 2, fillInvoker.released);
+        assertEquals(2, result.hits().size());
+        for (Hit hit : result.hits())
+            assertTrue(hit.isFilled(null));
+    }
+
+    private static class MockFillInvoker extends FillInvoker {
+
+        int requestedHits = 0;
+        int awaitedHits = 0;
+        int released = 0;
+
+        @Override
+        protected void sendFillRequest(Result result, String summaryClass) {
+            requestedHits += result.hits().size();
+        }
+
+        @Override
+        protected void getFillResults(Result result, String summaryClass) {
+            awaitedHits += result.hits().size();
+            for (Hit hit : result.hits()) {
+                hit.setFilled(summaryClass);
+            }
+        }
+
+        @Override
+        protected void release() {
+            released++;
+        }
+
+    }
+
+    private static List<LeanHit> createLeanHits(List<Double> scores, int distributionKey) {
+        List<LeanHit> hits = new ArrayList<>(scores.size());
+        for (Double value : scores) {
+            hits.add(new LeanHit(new GlobalId(IdString.createIdString("id:test:test::" + value)).getRawId(), distributionKey, distributionKey, value));
+        }
+        return hits;
+    }
+
     private static InterleavedSearchInvoker createInterLeavedTestInvoker(List<Double> a, List<Double> b) {
         SearchCluster cluster = new MockSearchCluster("!", 1, 2);
         List<SearchInvoker> invokers = new ArrayList<>();
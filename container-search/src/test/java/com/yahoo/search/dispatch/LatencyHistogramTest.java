@@ -0,0 +1,53 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void requireThatBucketsCoverAllLatencies() {
+        for (long latency = 0; latency < 100000; latency++) {
+            int bucket = LatencyHistogram.bucketOf(latency);
+            assertTrue(latency <= LatencyHistogram.upperBoundOf(bucket));
+            if (bucket > 0) {
+                assertTrue(latency > LatencyHistogram.upperBoundOf(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void requireThatPercentilesAreEstimated() {
+        LatencyHistogram histogram = new LatencyHistogram(100000);
+        assertFalse(histogram.percentile(95, 1).isPresent());
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1000, histogram.count());
+        assertFalse(histogram.percentile(95, 1001).isPresent());
+
+        long p50 = histogram.percentile(50, 100).getAsLong();
+        assertTrue(p50 >= 500 && p50 < 600);
+        long p95 = histogram.percentile(95, 100).getAsLong();
+        assertTrue(p95 >= 950 && p95 < 1150);
+        assertEquals(1, histogram.percentile(0, 100).getAsLong());
+    }
+
+    @Test
+    public void requireThatOldSamplesDecay() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        for (int i = 0; i < 500; i++) {
+            histogram.record(10);
+        }
+        assertTrue(histogram.count() < 100);
+        assertEquals(11, histogram.percentile(95, 10).getAsLong());
+    }
+
+}
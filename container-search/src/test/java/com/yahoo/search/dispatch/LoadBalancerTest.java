@@ -2,6 +2,7 @@
 package com.yahoo.search.dispatch;
 
 import com.yahoo.search.dispatch.LoadBalancer.AdaptiveScheduler;
+import com.yahoo.search.dispatch.LoadBalancer.BestOfRandom2Scheduler;
 import com.yahoo.search.dispatch.LoadBalancer.GroupStatus;
 import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.Node;
@@ -10,10 +11,10 @@ import junit.framework.AssertionFailedError;
 import org.junit.Test;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 
 import static com.yahoo.search.dispatch.MockSearchCluster.createDispatchConfig;
 import static org.hamcrest.Matchers.closeTo;
@@ -156,13 +157,61 @@ public class LoadBalancerTest {
         assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(4));
     }
 
+    @Test
+    public void requireThatBestOfRandom2SchedulerPrefersGroupsPredictedToCompleteFirst() {
+        Node slow = nodeWithLatency(0, 0, 200);
+        Node fast = nodeWithLatency(1, 1, 10);
+        Node busy = nodeWithLatency(2, 2, 10);
+        for (int i = 0; i < 30; i++) {
+            busy.requestSent();
+        }
+        List<GroupStatus> scoreboard = List.of(newGroupStatus(0, slow), newGroupStatus(1, fast), newGroupStatus(2, busy));
+        assertThat(scoreboard.get(0).predictedCompletionTime(), closeTo(200 * 1.19, 200 * 0.2));
+        assertThat(scoreboard.get(1).predictedCompletionTime(), closeTo(10 * 1.19, 10 * 0.2));
+        assertThat(scoreboard.get(2).predictedCompletionTime(), closeTo(31 * 10 * 1.19, 31 * 10 * 0.2));
+
+        // Picks are (0, 1), (1, 2) and (2, 0), as the second index skips the first
+        BestOfRandom2Scheduler sched = new BestOfRandom2Scheduler(intSequence(0, 0, 1, 1, 2, 0), scoreboard);
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(1));
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(1));
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(0));
+
+        // Only one candidate left
+        assertThat(sched.takeNextGroup(Set.of(0, 1)).get().groupId(), equalTo(2));
+    }
+
+    @Test
+    public void requireThatBestOfRandom2SchedulerUsesAverageSearchTimeWithoutLatencySamples() {
+        List<GroupStatus> scoreboard = List.of(newGroupStatus(0), newGroupStatus(1));
+        scoreboard.get(0).setQueryStatistics(1, 0.5);
+        scoreboard.get(1).setQueryStatistics(1, 0.1);
+        assertThat(scoreboard.get(0).predictedCompletionTime(), closeTo(500, 0.00001));
+        assertThat(scoreboard.get(1).predictedCompletionTime(), closeTo(100, 0.00001));
+
+        for (int i = 0; i < 5; i++) {
+            scoreboard.get(1).allocate();
+        }
+        assertThat(scoreboard.get(1).predictedCompletionTime(), closeTo(600, 0.00001));
+        BestOfRandom2Scheduler sched = new BestOfRandom2Scheduler(intSequence(0, 0), scoreboard);
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(0));
+    }
+
+    private static Node nodeWithLatency(int key, int group, long latencyMs) {
+        Node node = new Node(key, "test-node" + key, group);
+        for (int i = 0; i < 100; i++) {
+            node.requestSent();
+            node.requestCompleted(true, latencyMs);
+        }
+        return node;
+    }
+
     private static void updateSearchTime(GroupStatus gs, double time) {
         gs.allocate();
         gs.release(true, time);
     }
 
-    private GroupStatus newGroupStatus(int id) {
-        Group dummyGroup = new Group(id, Collections.emptyList()) {
+    private GroupStatus newGroupStatus(int id, Node ... nodes) {
+        Group dummyGroup = new Group(id, List.of(nodes)) {
             @Override
             public boolean hasSufficientCoverage() {
                 return true;
@@ -186,4 +235,15 @@ public class LoadBalancerTest {
             }
         };
     }
+
+    private Random intSequence(int... values) {
+        return new Random() {
+            private int index = 0;
+
+            @Override
+            public int nextInt(int bound) {
+                return values[index++ % values.length];
+            }
+        };
+    }
 }
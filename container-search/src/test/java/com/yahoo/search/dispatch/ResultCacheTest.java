@@ -0,0 +1,99 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultCacheTest {
+
+    private final ManualClock clock = new ManualClock(Instant.now());
+
+    @Test
+    public void requireThatCachedResultsAreReturnedUntilExpired() {
+        ResultCache cache = new ResultCache(10, Duration.ofSeconds(1), clock);
+        Query query = new Query("search/?query=test&hits=3");
+        ResultCache.Key key = cache.keyOf(query, 0).get();
+        assertFalse(cache.get(key).isPresent());
+
+        cache.put(key, createResult(query, 3, new Coverage(100, 100, 1)));
+        assertEquals(1, cache.size());
+        InvokerResult cached = cache.get(cache.keyOf(new Query("search/?query=test&hits=3"), 0).get()).get().toInvokerResult(query);
+        assertEquals(3, cached.getLeanHits().size());
+        assertEquals(3, cached.getResult().getTotalHitCount());
+        assertEquals(100, cached.getResult().getCoverage(false).getDocs());
+
+        clock.advance(Duration.ofMillis(1001));
+        assertFalse(cache.get(key).isPresent());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void requireThatKeyDependsOnQueryAndClusterState() {
+        ResultCache cache = new ResultCache(10, Duration.ofSeconds(1), clock);
+        ResultCache.Key key = cache.keyOf(new Query("search/?query=test&hits=3"), 0).get();
+        assertEquals(key, cache.keyOf(new Query("search/?query=test&hits=3&timeout=7"), 0).get());
+        assertNotEquals(key, cache.keyOf(new Query("search/?query=test&hits=4"), 0).get());
+        assertNotEquals(key, cache.keyOf(new Query("search/?query=other&hits=3"), 0).get());
+        assertNotEquals(key, cache.keyOf(new Query("search/?query=test&hits=3&ranking.features.query(x)=1"), 0).get());
+        assertNotEquals(key, cache.keyOf(new Query("search/?query=test&hits=3"), 1).get());
+
+        assertFalse(cache.keyOf(new Query("search/?query=test&nocache"), 0).isPresent());
+        assertFalse(cache.keyOf(new Query("search/?query=test&tracelevel=1"), 0).isPresent());
+        assertFalse(cache.keyOf(new Query("search/?query=test&ranking.queryCache=true"), 0).isPresent());
+    }
+
+    @Test
+    public void requireThatIncompleteResultsAreNotCached() {
+        ResultCache cache = new ResultCache(10, Duration.ofSeconds(1), clock);
+        Query query = new Query("search/?query=test");
+        ResultCache.Key key = cache.keyOf(query, 0).get();
+
+        cache.put(key, createResult(query, 3, new Coverage(50, 100, 1).setDegradedReason(Coverage.DEGRADED_BY_TIMEOUT)));
+        assertFalse(cache.get(key).isPresent());
+
+        InvokerResult withError = createResult(query, 3, new Coverage(100, 100, 1));
+        withError.getResult().hits().addError(ErrorMessage.createTimeout("timeout"));
+        cache.put(key, withError);
+        assertFalse(cache.get(key).isPresent());
+    }
+
+    @Test
+    public void requireThatLeastRecentlyUsedEntriesAreEvicted() {
+        ResultCache cache = new ResultCache(2, Duration.ofSeconds(1), clock);
+        ResultCache.Key[] keys = new ResultCache.Key[3];
+        for (int i = 0; i < keys.length; i++) {
+            Query query = new Query("search/?query=test" + i);
+            keys[i] = cache.keyOf(query, 0).get();
+            cache.put(keys[i], createResult(query, 1, new Coverage(100, 100, 1)));
+            if (i == 1) {
+                assertTrue(cache.get(keys[0]).isPresent());
+            }
+        }
+        assertEquals(2, cache.size());
+        assertTrue(cache.get(keys[0]).isPresent());
+        assertFalse(cache.get(keys[1]).isPresent());
+        assertTrue(cache.get(keys[2]).isPresent());
+    }
+
+    private static InvokerResult createResult(Query query, int hits, Coverage coverage) {
+        InvokerResult result = new InvokerResult(query, hits);
+        for (int i = 0; i < hits; i++) {
+            result.getLeanHits().add(new LeanHit(new byte[] { (byte) i }, 0, 0, hits - i));
+        }
+        result.getResult().setTotalHitCount(hits);
+        result.getResult().setCoverage(coverage);
+        return result;
+    }
+
+}
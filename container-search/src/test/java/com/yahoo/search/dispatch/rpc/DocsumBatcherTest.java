@@ -0,0 +1,153 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.Query;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Slime;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DocsumBatcherTest {
+
+    private final Compressor compressor = new Compressor();
+    private final EchoConnection connection = new EchoConnection();
+    private DocsumBatcher batcher;
+
+    @After
+    public void shutdown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    public void requireThatRequestsAreCombinedAndRepliesSplit() throws Exception {
+        batcher = new DocsumBatcher(10_000_000, 3, compressor);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        batcher.request(0, connection, request("summary1"), hits(1), new Query(), receiver(received));
+        assertEquals("Not sent before the batch is full", 0, connection.requests.size());
+        batcher.request(0, connection, request("summary1"), hits(2, 3), new Query(), receiver(received));
+
+        assertEquals(1, connection.requests.size());
+        assertEquals(3, connection.requests.get(0).getGlobalIdsCount());
+        assertEquals("[1]", received.poll(10, TimeUnit.SECONDS));
+        assertEquals("[2, 3]", received.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void requireThatDifferentRequestsAreNotCombined() throws Exception {
+        batcher = new DocsumBatcher(1000, 100, compressor);
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        batcher.request(0, connection, request("summary1"), hits(1), new Query(), receiver(received));
+        batcher.request(0, connection, request("summary2"), hits(2), new Query(), receiver(received));
+        batcher.request(1, connection, request("summary1"), hits(3), new Query(), receiver(received));
+
+        List<String> replies = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            replies.add(received.poll(10, TimeUnit.SECONDS));
+        }
+        assertEquals(3, connection.requests.size());
+        assertTrue(replies.containsAll(List.of("[1]", "[2]", "[3]")));
+    }
+
+    @Test
+    public void requireThatRequestsAreSentAtOnceAfterShutdown() throws Exception {
+        batcher = new DocsumBatcher(10_000_000, 100, compressor);
+        batcher.shutdown();
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        batcher.request(0, connection, request("summary1"), hits(1), new Query(), receiver(received));
+
+        assertEquals(1, connection.requests.size());
+        assertEquals("[1]", received.poll(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void requireThatRequestsWithQueryDataAreNotCombined() {
+        batcher = new DocsumBatcher(1000, 100, compressor);
+        assertTrue(DocsumBatcher.canCombine(request("summary1")));
+        assertFalse(DocsumBatcher.canCombine(request("summary1").setQueryTreeBlob(ByteString.copyFromUtf8("tree"))));
+        assertFalse(DocsumBatcher.canCombine(request("summary1").setCacheQuery(true).setSessionKey("session")));
+    }
+
+    private static SearchProtocol.DocsumRequest.Builder request(String summaryClass) {
+        return SearchProtocol.DocsumRequest.newBuilder().setSummaryClass(summaryClass).setRankProfile("default");
+    }
+
+    private static List<FastHit> hits(int ... ids) {
+        List<FastHit> hits = new ArrayList<>();
+        for (int id : ids) {
+            hits.add(new FastHit(new byte[] { (byte) id }, 1.0, 0, 0));
+        }
+        return hits;
+    }
+
+    /** Returns a receiver adding the ids in the docsums of its part of the reply to the given queue */
+    private static DocsumBatcher.Receiver receiver(BlockingQueue<String> received) {
+        return (reply, hits) -> {
+            try {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < hits.size(); i++) {
+                    ids.add(reply.response().get().root().field("docsums").entry(reply.response().get().offset() + i)
+                                 .field("docsum").field("id").asLong());
+                }
+                received.add(ids.toString());
+            } catch (InvalidProtocolBufferException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    /** A connection which replies with a docsum holding the first byte of the global id of each requested document */
+    private class EchoConnection implements Client.NodeConnection {
+
+        final List<SearchProtocol.DocsumRequest> requests = new ArrayList<>();
+
+        @Override
+        public void getDocsums(List<FastHit> hits, CompressionType compression, int uncompressedLength, byte[] compressedSlime,
+                               RpcFillInvoker.GetDocsumsResponseReceiver responseReceiver, double timeoutSeconds) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized void request(String rpcMethod, CompressionType compression, int uncompressedLength, byte[] compressedPayload,
+                                         Client.ResponseReceiver responseReceiver, double timeoutSeconds) {
+            try {
+                var request = SearchProtocol.DocsumRequest.parseFrom(compressor.decompress(compressedPayload, compression, uncompressedLength));
+                requests.add(request);
+
+                Slime slime = new Slime();
+                Cursor docsums = slime.setObject().setArray("docsums");
+                for (ByteString globalId : request.getGlobalIdsList()) {
+                    docsums.addObject().setObject("docsum").setLong("id", globalId.byteAt(0));
+                }
+                byte[] payload = SearchProtocol.DocsumReply.newBuilder()
+                                                           .setSlimeSummaries(ByteString.copyFrom(BinaryFormat.encode(slime)))
+                                                           .build().toByteArray();
+                responseReceiver.receive(Client.ResponseOrError.fromResponse(
+                        new Client.ProtobufResponse(CompressionType.NONE.getCode(), payload.length, payload)));
+            } catch (InvalidProtocolBufferException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void close() { }
+
+    }
+
+}
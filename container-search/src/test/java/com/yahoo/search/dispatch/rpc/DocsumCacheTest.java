@@ -0,0 +1,65 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.yahoo.prelude.fastsearch.DocsumDefinition;
+import com.yahoo.prelude.fastsearch.DocsumField;
+import com.yahoo.slime.Slime;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DocsumCacheTest {
+
+    private final ManualClock clock = new ManualClock(Instant.now());
+    private final DocsumDefinition summary = new DocsumDefinition("summaryClass1", List.of(DocsumField.create("field1", "string")));
+
+    @Test
+    public void requireThatCachedSummariesAreReturnedUntilExpired() {
+        DocsumCache cache = new DocsumCache(10, Duration.ofSeconds(1), clock);
+        cache.put(summary, new byte[] { 1, 2, 3 }, docsum("value1"));
+
+        assertEquals("value1", cache.get(summary, new byte[] { 1, 2, 3 }).get().field("field1").asString());
+        assertFalse(cache.get(summary, new byte[] { 1, 2, 4 }).isPresent());
+
+        clock.advance(Duration.ofMillis(1001));
+        assertFalse(cache.get(summary, new byte[] { 1, 2, 3 }).isPresent());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void requireThatSummariesFromOtherDefinitionsAreNotReturned() {
+        DocsumCache cache = new DocsumCache(10, Duration.ofSeconds(1), clock);
+        cache.put(summary, new byte[] { 1 }, docsum("value1"));
+
+        DocsumDefinition reconfigured = new DocsumDefinition("summaryClass1", List.of(DocsumField.create("field1", "string")));
+        assertFalse(cache.get(reconfigured, new byte[] { 1 }).isPresent());
+    }
+
+    @Test
+    public void requireThatLeastRecentlyUsedSummariesAreEvicted() {
+        DocsumCache cache = new DocsumCache(2, Duration.ofSeconds(1), clock);
+        cache.put(summary, new byte[] { 1 }, docsum("value1"));
+        cache.put(summary, new byte[] { 2 }, docsum("value2"));
+        assertTrue(cache.get(summary, new byte[] { 1 }).isPresent());
+        cache.put(summary, new byte[] { 3 }, docsum("value3"));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get(summary, new byte[] { 1 }).isPresent());
+        assertFalse(cache.get(summary, new byte[] { 2 }).isPresent());
+        assertTrue(cache.get(summary, new byte[] { 3 }).isPresent());
+    }
+
+    private static com.yahoo.slime.Inspector docsum(String value) {
+        Slime slime = new Slime();
+        slime.setObject().setString("field1", value);
+        return slime.get();
+    }
+
+}
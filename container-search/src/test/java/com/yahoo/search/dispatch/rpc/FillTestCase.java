@@ -1,24 +1,45 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch.rpc;
 
+import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.yahoo.compress.CompressionType;
+import com.yahoo.compress.Compressor;
+import com.yahoo.prelude.fastsearch.ClusterParams;
 import com.yahoo.prelude.fastsearch.DocsumDefinition;
 import com.yahoo.prelude.fastsearch.DocsumDefinitionSet;
 import com.yahoo.prelude.fastsearch.DocsumField;
 import com.yahoo.prelude.fastsearch.DocumentDatabase;
+import com.yahoo.prelude.fastsearch.DocumentdbInfoConfig;
 import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.prelude.fastsearch.FastSearcher;
+import com.yahoo.prelude.fastsearch.SummaryParameters;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.InvokerResult;
+import com.yahoo.search.dispatch.LeanHit;
+import com.yahoo.search.dispatch.ResultCache;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Slime;
 
 import org.junit.Test;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests using a dispatcher to fill a result
@@ -183,6 +204,117 @@ public class FillTestCase {
         assertEquals("Could not fill hits from unknown node 1", result.hits().getError().getDetailedMessage());
     }
 
+    @Test
+    public void testFillingCachedResultWithDynamicSummarySendsQuery() {
+        FastSearcher searcher = new FastSearcher("container.0", null, new SummaryParameters(null),
+                                                 new ClusterParams("testhittype"), dynamicSummaryConfig());
+        RecordingConnection connection = new RecordingConnection();
+        RpcInvokerFactory factory = new RpcInvokerFactory(new RpcResourcePool(Map.of(0, connection)), null);
+        ResultCache cache = new ResultCache(10, Duration.ofMinutes(1), Clock.systemUTC());
+
+        Query backendCached = new Query("search/?query=test&summary=dynamicSummary&ranking.queryCache=true");
+        assertFalse("Summaries of these rely on a backend session, so their results are not cached",
+                    cache.keyOf(backendCached, 0).isPresent());
+
+        Query first = new Query("search/?query=test&summary=dynamicSummary");
+        InvokerResult searched = new InvokerResult(first, 1);
+        searched.getLeanHits().add(new LeanHit(client.globalIdFrom(0).getRawId(), 0, 0, 1.0));
+        searched.getResult().setCoverage(new Coverage(100, 100, 1));
+        cache.put(cache.keyOf(first, 0).get(), searched);
+
+        Query query = new Query("search/?query=test&summary=dynamicSummary");
+        assertTrue(cache.get(cache.keyOf(query, 0).get()).isPresent());
+        Result result = new Result(query);
+        FastHit hit = new FastHit(client.globalIdFrom(0).getRawId(), 1.0, 0, 0);
+        hit.setQuery(query);
+        hit.setFillable();
+        result.hits().add(hit);
+
+        factory.createFillInvoker(searcher, result).fill(result, "dynamicSummary");
+
+        assertEquals(1, connection.requests.size());
+        assertFalse(connection.requests.get(0).getCacheQuery());
+        assertFalse("The query is sent with the summary request", connection.requests.get(0).getQueryTreeBlob().isEmpty());
+        assertEquals("dynamic snippet", result.hits().get(0).getField("snippet").toString());
+        assertNull(result.hits().getError());
+    }
+
+    @Test
+    public void testFillingWhenAllHitsAreInTheDocsumCache() {
+        FastSearcher searcher = new FastSearcher("container.0", null, new SummaryParameters(null),
+                                                 new ClusterParams("testhittype"), summaryConfig("staticSummary", false));
+        RecordingConnection connection = new RecordingConnection();
+        DocsumCache docsumCache = new DocsumCache(10, Duration.ofMinutes(1), Clock.systemUTC());
+        RpcInvokerFactory factory = new RpcInvokerFactory(new RpcResourcePool(Map.of(0, connection), Optional.of(docsumCache)), null);
+
+        for (int i = 0; i < 2; i++) { // The second fill is served from the cache alone
+            Query query = new Query("search/?query=test&summary=staticSummary");
+            Result result = new Result(query);
+            FastHit hit = new FastHit(client.globalIdFrom(0).getRawId(), 1.0, 0, 0);
+            hit.setQuery(query);
+            hit.setFillable();
+            result.hits().add(hit);
+
+            factory.createFillInvoker(searcher, result).fill(result, "staticSummary");
+
+            assertEquals("dynamic snippet", result.hits().get(0).getField("snippet").toString());
+            assertTrue(result.hits().get(0).isFilled("staticSummary"));
+            assertNull(result.hits().getError());
+        }
+        assertEquals(1, connection.requests.size());
+    }
+
+    private static DocumentdbInfoConfig dynamicSummaryConfig() {
+        return summaryConfig("dynamicSummary", true);
+    }
+
+    private static DocumentdbInfoConfig summaryConfig(String summaryClassName, boolean dynamic) {
+        var field = new DocumentdbInfoConfig.Documentdb.Summaryclass.Fields.Builder().name("snippet").type("longstring").dynamic(dynamic);
+        var summaryClass = new DocumentdbInfoConfig.Documentdb.Summaryclass.Builder().name(summaryClassName).id(1).fields(field);
+        var rankProfile = new DocumentdbInfoConfig.Documentdb.Rankprofile.Builder().name("default").hasSummaryFeatures(false);
+        var documentDb = new DocumentdbInfoConfig.Documentdb.Builder().name("test").summaryclass(summaryClass).rankprofile(rankProfile);
+        return new DocumentdbInfoConfig(new DocumentdbInfoConfig.Builder().documentdb(documentDb));
+    }
+
+    /** A connection which records docsum requests and replies with a snippet for each requested document */
+    private static class RecordingConnection implements Client.NodeConnection {
+
+        private final Compressor compressor = new Compressor();
+        final List<SearchProtocol.DocsumRequest> requests = new ArrayList<>();
+
+        @Override
+        public void getDocsums(List<FastHit> hits, CompressionType compression, int uncompressedLength, byte[] compressedSlime,
+                               RpcFillInvoker.GetDocsumsResponseReceiver responseReceiver, double timeoutSeconds) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void request(String rpcMethod, CompressionType compression, int uncompressedLength, byte[] compressedPayload,
+                            Client.ResponseReceiver responseReceiver, double timeoutSeconds) {
+            try {
+                var request = SearchProtocol.DocsumRequest.parseFrom(compressor.decompress(compressedPayload, compression, uncompressedLength));
+                requests.add(request);
+
+                Slime slime = new Slime();
+                Cursor docsums = slime.setObject().setArray("docsums");
+                for (ByteString globalId : request.getGlobalIdsList()) {
+                    docsums.addObject().setObject("docsum").setString("snippet", "dynamic snippet");
+                }
+                byte[] payload = SearchProtocol.DocsumReply.newBuilder()
+                                                           .setSlimeSummaries(ByteString.copyFrom(BinaryFormat.encode(slime)))
+                                                           .build().toByteArray();
+                responseReceiver.receive(Client.ResponseOrError.fromResponse(
+                        new Client.ProtobufResponse(CompressionType.NONE.getCode(), payload.length, payload)));
+            } catch (InvalidProtocolBufferException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void close() { }
+
+    }
+
     private DocumentDatabase db() {
         List<DocsumField> fields = new ArrayList<>();
         fields.add(DocsumField.create("field1", "string"));
@@ -17,6 +17,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
@@ -97,4 +98,36 @@ public class ProtobufSerializationTest {
             hitNum++;
         }
     }
+
+    @Test
+    public void testSearchReplyDecodingWithoutMessageObjects() throws IOException {
+        for (boolean useSorting : new boolean[] { false, true }) {
+            var reply = createSearchReply(5, useSorting).toBuilder()
+                                                        .setCoverageDocs(100).setActiveDocs(200).setSoonActiveDocs(300)
+                                                        .setDegradedByMatchPhase(true).build();
+            byte[] payload = new byte[reply.getSerializedSize() + 10];
+            System.arraycopy(reply.toByteArray(), 0, payload, 0, reply.getSerializedSize());
+
+            Query q = new Query("search/?query=test");
+            InvokerResult expected = ProtobufSerialization.convertToResult(q, reply, null, 1, 2);
+            InvokerResult result = ProtobufSerialization.deserializeToSearchResult(payload, reply.getSerializedSize(), q, null, 1, 2);
+
+            assertEquals(7, result.getResult().getTotalHitCount());
+            assertEquals(100, result.getResult().getCoverage(false).getDocs());
+            assertEquals(200, result.getResult().getCoverage(false).getActive());
+            assertEquals(300, result.getResult().getCoverage(false).getSoonActive());
+            assertTrue(result.getResult().getCoverage(false).isDegradedByMatchPhase());
+            assertEquals(expected.getLeanHits().size(), result.getLeanHits().size());
+            for (int i = 0; i < expected.getLeanHits().size(); i++) {
+                LeanHit expectedHit = expected.getLeanHits().get(i);
+                LeanHit hit = result.getLeanHits().get(i);
+                assertEquals(0, expectedHit.compareTo(hit));
+                assertArrayEquals(expectedHit.getGid(), hit.getGid());
+                assertEquals(expectedHit.getRelevance(), hit.getRelevance(), DELTA);
+                assertArrayEquals(expectedHit.getSortData(), hit.getSortData());
+                assertEquals(2, hit.getDistributionKey());
+            }
+        }
+    }
+
 }
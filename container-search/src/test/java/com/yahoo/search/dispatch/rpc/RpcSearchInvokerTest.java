@@ -20,6 +20,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -38,7 +40,7 @@ public class RpcSearchInvokerTest {
         var invoker = new RpcSearchInvoker(mockSearcher(), new Node(7, "seven", 1), mockPool, 1000);
 
         Query q = new Query("search/?query=test&hits=10&offset=3");
-        invoker.sendSearchRequest(q);
+        invoker.sendSearchRequest(q, null);
 
         var bytes = mockPool.compressor().decompress(payloadHolder.get(), compressionTypeHolder.get(), lengthHolder.get());
         var request = SearchProtocol.SearchRequest.newBuilder().mergeFrom(bytes).build();
@@ -59,7 +61,7 @@ public class RpcSearchInvokerTest {
         var invoker = new RpcSearchInvoker(mockSearcher(), new Node(7, "seven", 1), mockPool, maxHits);
 
         Query q = new Query("search/?query=test&hits=10&offset=3");
-        invoker.sendSearchRequest(q);
+        invoker.sendSearchRequest(q, null);
 
         var bytes = mockPool.compressor().decompress(payloadHolder.get(), compressionTypeHolder.get(), lengthHolder.get());
         var request = SearchProtocol.SearchRequest.newBuilder().mergeFrom(bytes).build();
@@ -67,6 +69,32 @@ public class RpcSearchInvokerTest {
         assertEquals(maxHits, request.getHits());
     }
 
+    @Test
+    public void testContextIsSharedBetweenInvokersWithEqualHits() throws IOException {
+        var compressionTypeHolder = new AtomicReference<CompressionType>();
+        var payloadHolder = new AtomicReference<byte[]>();
+        var lengthHolder = new AtomicInteger();
+        var mockClient = parameterCollectorClient(compressionTypeHolder, payloadHolder, lengthHolder);
+        var mockPool = new RpcResourcePool(ImmutableMap.of(7, mockClient.createConnection("foo", 123),
+                                                           8, mockClient.createConnection("bar", 123),
+                                                           9, mockClient.createConnection("baz", 123)));
+        var invoker1 = new RpcSearchInvoker(mockSearcher(), new Node(7, "seven", 1), mockPool, 1000);
+        var invoker2 = new RpcSearchInvoker(mockSearcher(), new Node(8, "eight", 1), mockPool, 1000);
+        var invoker3 = new RpcSearchInvoker(mockSearcher(), new Node(9, "nine", 1), mockPool, 5);
+
+        Query q = new Query("search/?query=test&hits=10&offset=3");
+        Object context1 = invoker1.sendSearchRequest(q, null);
+        byte[] payload1 = payloadHolder.get();
+        Object context2 = invoker2.sendSearchRequest(q, context1);
+        assertSame(context1, context2);
+        assertSame(payload1, payloadHolder.get());
+
+        Object context3 = invoker3.sendSearchRequest(q, context2);
+        assertNotSame(context2, context3);
+        var bytes = mockPool.compressor().decompress(payloadHolder.get(), compressionTypeHolder.get(), lengthHolder.get());
+        assertEquals(5, SearchProtocol.SearchRequest.newBuilder().mergeFrom(bytes).build().getHits());
+    }
+
     private Client parameterCollectorClient(AtomicReference<CompressionType> compressionTypeHolder, AtomicReference<byte[]> payloadHolder,
             AtomicInteger lengthHolder) {
         return new Client() {
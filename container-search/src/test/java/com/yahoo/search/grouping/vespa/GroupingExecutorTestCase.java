@@ -109,6 +109,35 @@ public class GroupingExecutorTestCase {
         assertEquals(2, cnt.numPasses);
     }
 
+    @Test
+    public void requireThatPassesStopWhenNoGroupsAreLeftToExpand() {
+        Query query = newQuery();
+        GroupingRequest req = GroupingRequest.newInstance(query);
+        req.setRootOperation(GroupingOperation.fromString("all(group(foo) each(group(bar) each(output(max(baz)))))"));
+        Grouping pass0 = new Grouping(0);
+        pass0.setRoot(new com.yahoo.searchlib.aggregation.Group()
+                .addChild(new com.yahoo.searchlib.aggregation.Group().setId(new StringResultNode("foo1"))));
+        Grouping pass1 = new Grouping(0);
+        pass1.setRoot(new com.yahoo.searchlib.aggregation.Group()
+                .addChild(new com.yahoo.searchlib.aggregation.Group().setId(new StringResultNode("foo1"))));
+        PassCounter cnt = new PassCounter();
+        newExecution(new GroupingExecutor(), cnt,
+                     new ResultProvider(Arrays.asList(new GroupingListHit(Arrays.asList(pass0), null),
+                                                      new GroupingListHit(Arrays.asList(pass1), null)))).search(query);
+        assertEquals("The third pass is skipped as no 'bar' groups were returned", 2, cnt.numPasses);
+
+        query = newQuery();
+        req = GroupingRequest.newInstance(query);
+        req.setRootOperation(GroupingOperation.fromString("all(group(foo) each(group(bar) each(output(max(baz)))))"));
+        Grouping empty = new Grouping(0);
+        empty.setRoot(new com.yahoo.searchlib.aggregation.Group());
+        cnt = new PassCounter();
+        Result result = newExecution(new GroupingExecutor(), cnt,
+                                     new ResultProvider(Arrays.asList(new GroupingListHit(Arrays.asList(empty), null)))).search(query);
+        assertEquals("Only the first pass is needed when no groups are returned", 1, cnt.numPasses);
+        assertNotNull(req.getResultGroup(result));
+    }
+
     @Test
     public void requireThatPassRequestsSingleLevel() {
         Query query = newQuery();
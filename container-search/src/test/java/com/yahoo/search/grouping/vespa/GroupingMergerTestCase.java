@@ -0,0 +1,81 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.grouping.vespa;
+
+import com.yahoo.searchlib.aggregation.CountAggregationResult;
+import com.yahoo.searchlib.aggregation.Group;
+import com.yahoo.searchlib.aggregation.Grouping;
+import com.yahoo.searchlib.expression.StringResultNode;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class GroupingMergerTestCase {
+
+    @Test
+    public void requireThatSingleResultIsReturned() {
+        Grouping grouping = nodeResult(0);
+        assertSame(grouping, GroupingMerger.merge(List.of(grouping)));
+    }
+
+    @Test
+    public void requireThatFewResultsAreMerged() {
+        assertMerged(5);
+    }
+
+    @Test
+    public void requireThatManyResultsAreMergedInParallel() {
+        assertMerged(100);
+    }
+
+    private static void assertMerged(int nodes) {
+        List<Grouping> groupings = new ArrayList<>();
+        Map<String, Long> expectedCounts = new TreeMap<>();
+        for (int node = 0; node < nodes; node++) {
+            groupings.add(nodeResult(node));
+            for (int i = node % 7; i < 20; i += 1 + node % 3) {
+                expectedCounts.merge(id(i), 1L, Long::sum);
+                expectedCounts.merge(id(i) + "/" + id(node % 2), 1L, Long::sum);
+            }
+        }
+
+        Grouping merged = GroupingMerger.merge(groupings);
+        assertSame(groupings.get(0), merged);
+        Map<String, Long> counts = new TreeMap<>();
+        String previousId = "";
+        for (Group group : merged.getRoot().getChildren()) {
+            String id = group.getId().getString();
+            assertEquals("Children are ordered by id", 1, Integer.signum(id.compareTo(previousId)));
+            previousId = id;
+            counts.put(id, count(group));
+            for (Group child : group.getChildren())
+                counts.put(id + "/" + child.getId().getString(), count(child));
+        }
+        assertEquals(expectedCounts, counts);
+    }
+
+    /** Returns a two level result in which each group has count 1 */
+    private static Grouping nodeResult(int node) {
+        Group root = new Group();
+        for (int i = node % 7; i < 20; i += 1 + node % 3) {
+            Group group = new Group().setId(new StringResultNode(id(i))).addAggregationResult(new CountAggregationResult(1));
+            group.addChild(new Group().setId(new StringResultNode(id(node % 2))).addAggregationResult(new CountAggregationResult(1)));
+            root.addChild(group);
+        }
+        return new Grouping(0).setRoot(root);
+    }
+
+    private static String id(int i) {
+        return String.format("g%02d", i);
+    }
+
+    private static long count(Group group) {
+        return ((CountAggregationResult)group.getAggregationResults().get(0)).getCount();
+    }
+
+}
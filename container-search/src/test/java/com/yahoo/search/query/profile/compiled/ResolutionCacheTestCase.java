@@ -0,0 +1,91 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.QueryProfile;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResolutionCacheTestCase {
+
+    @Test
+    public void testResolutionsAreCreatedOncePerBindingAndEvictedWhenFull() {
+        CompiledQueryProfile profile = new QueryProfile("test").compile(null);
+        ResolutionCache cache = new ResolutionCache(2);
+        String[] dimensions = { "x" };
+
+        ResolutionCache.Resolution x1 = cache.get(profile, dimensions, toMap("x", "x1"));
+        assertSame(x1, cache.get(profile, dimensions, toMap("x", "x1")));
+        ResolutionCache.Resolution x2 = cache.get(profile, dimensions, toMap("x", "x2"));
+        assertEquals(2, cache.size());
+
+        ResolutionCache.Resolution x3 = cache.get(profile, dimensions, toMap("x", "x3"));
+        assertEquals(2, cache.size());
+        assertSame("The added resolution is kept", x3, cache.get(profile, dimensions, toMap("x", "x3")));
+        assertTrue("One of the others is evicted",
+                   x1 != cache.get(profile, dimensions, toMap("x", "x1")) || x2 != cache.get(profile, dimensions, toMap("x", "x2")));
+    }
+
+    @Test
+    public void testValuesAndListingsAreResolvedOnceWhenFirstLookedUp() {
+        ResolutionCache.Resolution resolution = new ResolutionCache(1).get(new QueryProfile("test").compile(null),
+                                                                           new String[] { "x" }, toMap("x", "x1"));
+        AtomicInteger resolutions = new AtomicInteger();
+        CompoundName a = new CompoundName("a");
+        CompoundName b = new CompoundName("b");
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("x1", resolution.value(a, () -> value(resolutions, "x1")).value());
+            assertNull(resolution.value(b, () -> value(resolutions, null)));
+            assertEquals(List.of(), resolution.listing(a, () -> { resolutions.incrementAndGet(); return List.of(); }));
+        }
+        assertEquals(3, resolutions.get());
+    }
+
+    @Test
+    public void testValuesAreLookedUpInResolutions() {
+        QueryProfileRegistry registry = new QueryProfileRegistry();
+        QueryProfile profile = new QueryProfile("test");
+        profile.setDimensions(new String[] { "x", "y" });
+        profile.set("a", "a", registry);
+        profile.set("a", "a.x1", new String[] { "x1" }, registry);
+        profile.set("a", "a.x1.y1", new String[] { "x1", "y1" }, registry);
+        profile.set("b", "b.y1", new String[] { null, "y1" }, registry);
+        registry.register(profile);
+        CompiledQueryProfile cprofile = registry.compile().findQueryProfile("test");
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals("a", cprofile.get("a", toMap("unrelated", String.valueOf(i))));
+            assertEquals("a.x1", cprofile.get("a", toMap("x", "x1")));
+            assertEquals("a.x1.y1", cprofile.get("a", toMap("x", "x1", "y", "y1")));
+            assertEquals("b.y1", cprofile.get("b", toMap("x", "x2", "y", "y1")));
+            assertNull(cprofile.get("b", toMap("x", "x1")));
+            assertNull(cprofile.get("c", toMap("x", "x1")));
+            assertEquals("{a=a.x1}", cprofile.listValues("", toMap("x", "x1")).toString());
+        }
+        assertEquals(4, cprofile.getRegistry().resolutions().size());
+    }
+
+    private static ValueWithSource value(AtomicInteger resolutions, String value) {
+        resolutions.incrementAndGet();
+        return value == null ? null : new ValueWithSource(value, "test", null);
+    }
+
+    private static Map<String, String> toMap(String ... keyValues) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2)
+            map.put(keyValues[i], keyValues[i + 1]);
+        return map;
+    }
+
+}
@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
@@ -272,6 +273,35 @@ public class QueryProfileVariantsTestCase {
         assertEquals("a, b, c, d", listedKeys);
     }
 
+    @Test
+    public void testListValuesByPrefixInVariants() {
+        QueryProfile profile = new QueryProfile("test");
+        profile.setDimensions(new String[] {"x"});
+        profile.set("a", "a", null);
+        profile.set("a.b", "a.b", null);
+        profile.set("a.b", "a.b.x1", new String[] {"x1"}, null);
+        profile.set("a.c", "a.c.x1", new String[] {"x1"}, null);
+        profile.set("ab.d", "ab.d", null);
+        profile.set("e.f", "e.f", null);
+
+        CompiledQueryProfile cprofile = profile.compile(new CompiledQueryProfileRegistry());
+
+        for (int i = 0; i < 2; i++) { // The second round lists memoized values
+            assertEquals("{=a, b=a.b}", sorted(cprofile.listValues("a", toMap("unrelated=" + i))));
+            assertEquals("{=a, b=a.b.x1, c=a.c.x1}", sorted(cprofile.listValues("a", toMap("x=x1", "unrelated=" + i))));
+            assertEquals("{b=a.b.x1, c=a.c.x1}",
+                         sorted(cprofile.listValuesWithSources(new CompoundName("a"), toMap("x=x1"), null)
+                                        .entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue().value()))));
+            assertEquals("{d=ab.d}", sorted(cprofile.listValues("ab", toMap("x=x2"))));
+            assertEquals("{}", sorted(cprofile.listValues("a.b.c", toMap("x=x1"))));
+            assertEquals(5, cprofile.listValues("", toMap("x=x1")).size());
+        }
+    }
+
+    private static String sorted(Map<String, Object> values) {
+        return new TreeMap<>(values).toString();
+    }
+
     @Test
     public void testVariantsOfExplicitCompound() {
         QueryProfile a1 = new QueryProfile("a1");
@@ -2,12 +2,15 @@
 package com.yahoo.search.query.properties.test;
 
 import com.yahoo.processing.request.properties.PropertyMap;
+import com.yahoo.search.Query;
 import org.junit.Test;
 
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -36,6 +39,58 @@ public class PropertyMapTestCase {
         assertTrue(first(map.get("nonclonableArray")) == first(mapClone.get("nonclonableArray")));
     }
 
+    @Test
+    public void testCloningWithoutClonableValues() {
+        PropertyMap map = new PropertyMap();
+        map.set("a", "a1");
+        map.set("b", "b1");
+
+        PropertyMap clone1 = map.clone();
+        PropertyMap clone2 = clone1.clone();
+        clone1.set("a", "a2");
+        map.set("b", "b2");
+        clone2.set("c", "c3");
+
+        assertEquals("a1", map.get("a"));
+        assertEquals("b2", map.get("b"));
+        assertNull(map.get("c"));
+        assertEquals("a2", clone1.get("a"));
+        assertEquals("b1", clone1.get("b"));
+        assertNull(clone1.get("c"));
+        assertEquals("a1", clone2.get("a"));
+        assertEquals("b1", clone2.get("b"));
+        assertEquals("c3", clone2.get("c"));
+    }
+
+    @Test
+    public void testCloningQueryProperties() {
+        Query query = new Query("?query=test&foo=bar");
+        query.properties().set("set.value", "original");
+        Query clone = query.clone();
+        clone.properties().set("set.value", "changed");
+        clone.properties().set("foo", "baz");
+        assertEquals("original", query.properties().get("set.value"));
+        assertEquals("bar", query.properties().get("foo"));
+        assertEquals("changed", clone.properties().get("set.value"));
+        assertEquals("baz", clone.properties().get("foo"));
+
+        query.properties().set("set.other", "original");
+        assertNull(clone.properties().get("set.other"));
+    }
+
+    @Test
+    public void testWritingSharedSearchPropertiesKeepsInsertionOrder() {
+        com.yahoo.search.query.properties.PropertyMap map = new com.yahoo.search.query.properties.PropertyMap();
+        for (String name : List.of("c", "a", "d", "b"))
+            map.set(name, name);
+        com.yahoo.search.query.properties.PropertyMap clone = map.clone();
+        clone.set("e", "e");
+        map.set("f", "f");
+
+        assertEquals("[c, a, d, b, e]", clone.propertyMap().keySet().toString());
+        assertEquals("[c, a, d, b, f]", map.propertyMap().keySet().toString());
+    }
+
     private Object first(Object object) {
         if (object instanceof Object[])
             return ((Object[])object)[0];
@@ -5,9 +5,13 @@ import com.google.common.base.Charsets;
 import com.yahoo.component.chain.Chain;
 import com.yahoo.language.Language;
 import com.yahoo.language.simple.SimpleLinguistics;
+import com.yahoo.prelude.IndexFacts;
+import com.yahoo.prelude.query.WordItem;
+import com.yahoo.prelude.query.parser.SpecialTokenRegistry;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.Searcher;
+import com.yahoo.search.grouping.Continuation;
 import com.yahoo.search.grouping.GroupingRequest;
 import com.yahoo.search.query.Sorting.AttributeSorter;
 import com.yahoo.search.query.Sorting.FieldOrder;
@@ -341,6 +345,41 @@ public class MinimalQueryInserterTestCase {
                      query.yqlRepresentation());
     }
 
+    @Test
+    public void testParseCache() {
+        MinimalQueryInserter inserter = new MinimalQueryInserter();
+        Execution.Context cachingContext = Execution.Context.createContextStub(null, new IndexFacts(), new SimpleLinguistics());
+        cachingContext.setTokenRegistry(new SpecialTokenRegistry());
+        String yql = "select foo from bar where title contains \"madonna\" order by something limit 30 offset 10 " +
+                     "| all(group(a) each(output(count())));";
+
+        Query first = new Query("search/?yql=" + encode(yql) + "&yql.parseCache=true");
+        new Execution(new Chain<>(inserter), cachingContext).search(first);
+        assertEquals(1, inserter.parseCacheSize());
+        ((WordItem)first.getModel().getQueryTree().getRoot()).setWord("modified");
+        first.getSelect().getGrouping().get(0).continuations().add(Continuation.fromString("BCBCBCBEBG"));
+
+        Query second = new Query("search/?yql=" + encode(yql) + "&yql.parseCache=true");
+        new Execution(new Chain<>(inserter), cachingContext).search(second);
+        assertEquals(1, inserter.parseCacheSize());
+        assertEquals("title:madonna", second.getModel().getQueryTree().toString());
+        assertEquals(10, second.getOffset());
+        assertEquals(20, second.getHits());
+        assertEquals("[ASCENDING:something]", second.getRanking().getSorting().fieldOrders().toString());
+        assertGrouping("[[]all(group(a) each(output(count())))]", second);
+
+        Query dependent = new Query("search/?query=text&yql=" + encode("select * from sources * where userQuery();") +
+                                    "&yql.parseCache=true");
+        new Execution(new Chain<>(inserter), cachingContext).search(dependent);
+        assertEquals("text", dependent.getModel().getQueryTree().toString());
+        assertEquals("Parses depending on the user query are not cached", 1, inserter.parseCacheSize());
+
+        Query uncached = new Query("search/?yql=" + encode("select * from sources * where title contains \"other\";"));
+        new Execution(new Chain<>(inserter), cachingContext).search(uncached);
+        assertEquals("title:other", uncached.getModel().getQueryTree().toString());
+        assertEquals("The cache is opt-in", 1, inserter.parseCacheSize());
+    }
+
     @Test
     public void verifyThatWarmupIsSane() {
         assertTrue(MinimalQueryInserter.warmup());
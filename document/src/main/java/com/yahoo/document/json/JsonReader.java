@@ -4,8 +4,10 @@ package com.yahoo.document.json;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
+import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentPut;
 import com.yahoo.document.DocumentType;
 import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.TestAndSetCondition;
@@ -92,8 +94,9 @@ public class JsonReader {
                 break;
         }
         Optional<DocumentParseInfo> documentParseInfo;
+        StreamingOperationReader streamingReader = new StreamingOperationReader();
         try {
-            documentParseInfo = parseDocument();
+            documentParseInfo = new DocumentParser(parser, streamingReader).parse(Optional.empty());
         } catch (IOException r) {
             // Jackson is not able to recover from structural parse errors
             state = END_OF_FEED;
@@ -103,14 +106,51 @@ public class JsonReader {
             state = END_OF_FEED;
             return null;
         }
-        VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
-        DocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
-                getDocumentTypeFromString(documentParseInfo.get().documentId.getDocType(), typeManager),
-                documentParseInfo.get());
+        DocumentOperation operation = streamingReader.operation(documentParseInfo.get());
         operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.get().condition));
         return operation;
     }
 
+    private DocumentOperation createDocumentOperation(DocumentParseInfo documentParseInfo) {
+        VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
+        return vespaJsonDocumentReader.createDocumentOperation(
+                getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager), documentParseInfo);
+    }
+
+    /**
+     * Creates a put while its fields are read directly from the parser, in the common case where the
+     * document id precedes the fields. Errors are deferred until the whole document is parsed,
+     * such that the next document can still be read.
+     */
+    private class StreamingOperationReader implements DocumentParser.FieldsReader {
+
+        private DocumentOperation operation = null;
+        private RuntimeException exception = null;
+
+        @Override
+        public void read(DocumentParseInfo documentParseInfo, JsonParser parser) throws IOException {
+            try {
+                DocumentPut put = new DocumentPut(new Document(readDocumentType(documentParseInfo.documentId),
+                                                               documentParseInfo.documentId));
+                new VespaJsonDocumentReader().readPut(parser, put);
+                operation = put;
+            } catch (RuntimeException e) {
+                exception = e;
+            }
+        }
+
+        /** Returns the operation of the given parsed document, creating it now unless it was created while streaming */
+        DocumentOperation operation(DocumentParseInfo documentParseInfo) {
+            if (exception != null) throw exception;
+            if (operation == null) return createDocumentOperation(documentParseInfo);
+
+            // The create flag may come after the fields
+            new VespaJsonDocumentReader().setCreateIfNonExistent(operation, documentParseInfo);
+            return operation;
+        }
+
+    }
+
 
     public DocumentType readDocumentType(DocumentId docId) {
         return getDocumentTypeFromString(docId.getDocType(), typeManager);
@@ -2,6 +2,7 @@
 package com.yahoo.document.json.document;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
 import com.fasterxml.jackson.core.JsonToken;
 import com.yahoo.document.DocumentId;
 import com.yahoo.document.json.readers.DocumentParseInfo;
@@ -27,10 +28,20 @@ public class DocumentParser {
     public static final String FIELDS = "fields";
     public static final String REMOVE = "remove";
     private final JsonParser parser;
+    private final FieldsReader fieldsReader;
     private  long indentLevel;
 
     public DocumentParser(JsonParser parser) {
+        this(parser, null);
+    }
+
+    /**
+     * Creates a parser which, when the fields of a put come after its id, lets the given reader read them
+     * directly from the JSON parser, rather than buffering all of them for reading after parsing.
+     */
+    public DocumentParser(JsonParser parser, FieldsReader fieldsReader) {
         this.parser = parser;
+        this.fieldsReader = fieldsReader;
     }
 
     /**
@@ -126,7 +137,16 @@ public class DocumentParser {
             JsonToken currentToken = parser.getCurrentToken();
             // "fields" opens a dictionary and is therefore on level two which might be surprising.
             if (currentToken == JsonToken.START_OBJECT && FIELDS.equals(parser.getCurrentName())) {
-                documentParseInfo.fieldsBuffer.bufferObject(currentToken, parser);
+                if (canStreamFields(documentParseInfo)) {
+                    JsonStreamContext enclosing = parser.getParsingContext().getParent();
+                    try {
+                        fieldsReader.read(documentParseInfo, parser);
+                    } finally { // skip what the reader left unread of the fields
+                        while (parser.getParsingContext() != enclosing && parser.nextToken() != null) { }
+                    }
+                } else {
+                    documentParseInfo.fieldsBuffer.bufferObject(currentToken, parser);
+                }
                 processIndent();
             }
         } catch (IOException e) {
@@ -134,6 +154,13 @@ public class DocumentParser {
         }
     }
 
+    private boolean canStreamFields(DocumentParseInfo documentParseInfo) {
+        return fieldsReader != null
+               && documentParseInfo.documentId != null
+               && documentParseInfo.operationType == SupportedOperation.PUT
+               && documentParseInfo.fieldsBuffer.isEmpty();
+    }
+
     private static SupportedOperation operationNameToOperationType(String operationName) {
         switch (operationName) {
             case PUT:
@@ -149,4 +176,18 @@ public class DocumentParser {
                                 "\"remove\" and \"update\" are supported.");
         }
     }
+
+    /** Reads the fields of a document directly from the JSON parser */
+    public interface FieldsReader {
+
+        /**
+         * Reads the fields object of a document
+         *
+         * @param documentParseInfo the document parsed so far
+         * @param parser the parser, positioned at the start of the fields object
+         */
+        void read(DocumentParseInfo documentParseInfo, JsonParser parser) throws IOException;
+
+    }
+
 }
@@ -1,15 +1,23 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.document.json.readers;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.yahoo.document.DataType;
 import com.yahoo.document.DocumentId;
 import com.yahoo.document.PositionDataType;
 import com.yahoo.document.ReferenceDataType;
+import com.yahoo.document.StructDataType;
+import com.yahoo.document.datatypes.BoolFieldValue;
+import com.yahoo.document.datatypes.DoubleFieldValue;
 import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.LongFieldValue;
+import com.yahoo.document.datatypes.Struct;
 import com.yahoo.document.json.TokenBuffer;
 import com.yahoo.document.update.ValueUpdate;
 
+import java.io.IOException;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
@@ -51,6 +59,28 @@ public class SingleValueReader {
         }
     }
 
+    /**
+     * Reads the value the given parser is positioned at. Atomic values and structs are read directly from the parser,
+     * while other composite values are buffered and read from the buffer.
+     */
+    public static FieldValue readSingleValue(JsonParser parser, DataType expectedType) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token.isScalarValue()) {
+            return readAtomic(parser, expectedType);
+        } else if (token == JsonToken.START_OBJECT && expectedType instanceof StructDataType) {
+            Struct struct = ((StructDataType) expectedType).createFieldValue();
+            StructReader.fillStruct(parser, struct);
+            return struct;
+        } else {
+            TokenBuffer buffer = new TokenBuffer();
+            if (token == JsonToken.START_OBJECT)
+                buffer.bufferObject(token, parser);
+            else
+                buffer.bufferArray(token, parser);
+            return readSingleValue(buffer, expectedType);
+        }
+    }
+
     @SuppressWarnings("rawtypes")
     public static ValueUpdate readSingleUpdate(TokenBuffer buffer, DataType expectedType, String action) {
         ValueUpdate update;
@@ -96,6 +126,22 @@ public class SingleValueReader {
         }
     }
 
+    /** Reads numbers and booleans of the corresponding types from the given parser without reading their text */
+    private static FieldValue readAtomic(JsonParser parser, DataType expectedType) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            if (expectedType.equals(DataType.INT) && parser.getNumberType() == JsonParser.NumberType.INT)
+                return new IntegerFieldValue(parser.getIntValue());
+            if (expectedType.equals(DataType.LONG) && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER)
+                return new LongFieldValue(parser.getLongValue());
+        }
+        if (token.isNumeric() && expectedType.equals(DataType.DOUBLE))
+            return new DoubleFieldValue(parser.getDoubleValue());
+        if (token.isBoolean() && expectedType.equals(DataType.BOOL))
+            return new BoolFieldValue(token == JsonToken.VALUE_TRUE);
+        return readAtomic(parser.getText(), expectedType);
+    }
+
     private static FieldValue readReferenceFieldValue(final String refText, DataType expectedType) {
         final FieldValue value = expectedType.createFieldValue();
         if (!refText.isEmpty()) {
@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.document.json.readers;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.yahoo.document.Field;
 import com.yahoo.document.datatypes.FieldValue;
@@ -8,6 +9,9 @@ import com.yahoo.document.datatypes.StructuredFieldValue;
 import com.yahoo.document.json.JsonReaderException;
 import com.yahoo.document.json.TokenBuffer;
 
+import java.io.IOException;
+
+import static com.yahoo.document.json.readers.JsonParserHelpers.expectObjectStart;
 import static com.yahoo.document.json.readers.SingleValueReader.readSingleValue;
 
 public class StructReader {
@@ -32,10 +36,30 @@ public class StructReader {
         }
     }
 
+    /** Fills the given struct from the object the given parser is positioned at the start of, leaving it at the end */
+    public static void fillStruct(JsonParser parser, StructuredFieldValue parent) throws IOException {
+        expectObjectStart(parser.currentToken());
+        for (JsonToken token = parser.nextValue(); token != JsonToken.END_OBJECT; token = parser.nextValue()) {
+            Field f = getField(parser.getCurrentName(), parent);
+            try {
+                // skip fields set to null
+                if (token != JsonToken.VALUE_NULL) {
+                    parent.setFieldValue(f, readSingleValue(parser, f.getDataType()));
+                }
+            } catch (IllegalArgumentException e) {
+                throw new JsonReaderException(f, e);
+            }
+        }
+    }
+
     public static Field getField(TokenBuffer buffer, StructuredFieldValue parent) {
-        Field field = parent.getField(buffer.currentName());
+        return getField(buffer.currentName(), parent);
+    }
+
+    private static Field getField(String name, StructuredFieldValue parent) {
+        Field field = parent.getField(name);
         if (field == null)
-            throw new IllegalArgumentException("No field '" + buffer.currentName() + "' in the structure of type '" +
+            throw new IllegalArgumentException("No field '" + name + "' in the structure of type '" +
                                                parent.getDataType().getDataTypeName() + "'");
         return field;
     }
@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.document.json.readers;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.google.common.base.Preconditions;
 import com.yahoo.document.Document;
@@ -20,6 +21,8 @@ import com.yahoo.document.json.JsonReaderException;
 import com.yahoo.document.json.TokenBuffer;
 import com.yahoo.document.update.FieldUpdate;
 
+import java.io.IOException;
+
 import static com.yahoo.document.json.readers.AddRemoveCreator.createAdds;
 import static com.yahoo.document.json.readers.AddRemoveCreator.createRemoves;
 import static com.yahoo.document.json.readers.CompositeReader.populateComposite;
@@ -67,6 +70,12 @@ public class VespaJsonDocumentReader {
         } catch (JsonReaderException e) {
             throw JsonReaderException.addDocId(e, documentParseInfo.documentId);
         }
+        setCreateIfNonExistent(documentOperation, documentParseInfo);
+        return documentOperation;
+    }
+
+    /** Sets the create flag of the given parse info, if any, on the given operation */
+    public void setCreateIfNonExistent(DocumentOperation documentOperation, DocumentParseInfo documentParseInfo) {
         if (documentParseInfo.create.isPresent()) {
             if (! ( documentOperation instanceof DocumentUpdate)) {
                 throw new IllegalArgumentException("Could not set create flag on non update operation.");
@@ -74,7 +83,6 @@ public class VespaJsonDocumentReader {
             DocumentUpdate update = (DocumentUpdate) documentOperation;
             update.setCreateIfNonExistent(documentParseInfo.create.get());
         }
-        return documentOperation;
     }
 
     // Exposed for unit testing...
@@ -88,6 +96,18 @@ public class VespaJsonDocumentReader {
         }
     }
 
+    /**
+     * Reads the fields of the given put directly from the given parser, which must be positioned at the start
+     * of the fields object, and leaves the parser at its end
+     */
+    public void readPut(JsonParser parser, DocumentPut put) throws IOException {
+        try {
+            StructReader.fillStruct(parser, put.getDocument());
+        } catch (JsonReaderException e) {
+            throw JsonReaderException.addDocId(e, put.getId());
+        }
+    }
+
     // Exposed for unit testing...
     public void readUpdate(TokenBuffer buffer, DocumentUpdate update) {
         if (buffer.isEmpty())
@@ -877,6 +877,52 @@ public class JsonReaderTestCase {
         controlBasicFeed(r);
     }
 
+    @Test
+    public void testStreamedPutReadsNumbersAndBooleansAsTheirTextWould() {
+        JsonReader r = createReader(inputJson("[",
+                "{ 'put': 'id:unittest:smoke::whee',",
+                "  'fields': { 'int1': 3, 'flag': true }},",
+                "{ 'put': 'id:unittest:smoke::whee',",
+                "  'fields': { 'int1': '3', 'flag': 'true' }},",
+                "{ 'put': 'id:unittest:smoke::whee',",
+                "  'fields': { 'int1': 3000000000 }}]"));
+        for (int i = 0; i < 2; i++) {
+            Document doc = ((DocumentPut) r.next()).getDocument();
+            assertEquals(new IntegerFieldValue(3), doc.getFieldValue("int1"));
+            assertEquals(new BoolFieldValue(true), doc.getFieldValue("flag"));
+        }
+        try {
+            r.next();
+            fail("Expected an exception");
+        } catch (IllegalArgumentException e) {
+            assertTrue(Exceptions.toMessageString(e).contains("For input string: \"3000000000\""));
+        }
+        assertNull(r.next());
+    }
+
+    @Test
+    public void testFeedCanBeReadPastInvalidFieldsOfStreamedDocument() {
+        JsonReader r = createReader(inputJson("[",
+                "{ 'put': 'id:unittest:smoke::whee',",
+                "  'fields': {",
+                "    'smething': { 'nested': [ 'ignored' ] },",
+                "    'nalle': 'bamse' },",
+                "  'condition': 'bla' },",
+                "{ 'put': 'id:unittest:smoke::whee',",
+                "  'fields': {",
+                "    'something': 'smoketest',",
+                "    'flag': true,",
+                "    'nalle': 'bamse' }}]"));
+        try {
+            r.next();
+            fail("Expected an exception");
+        } catch (IllegalArgumentException e) {
+            assertTrue(Exceptions.toMessageString(e).contains("No field 'smething' in the structure of type 'smoke'"));
+        }
+        smokeTestDoc(((DocumentPut) r.next()).getDocument());
+        assertNull(r.next());
+    }
+
     protected void controlBasicFeed(JsonReader r) {
         DocumentOperation d = r.next();
         Document doc = ((DocumentPut) d).getDocument();
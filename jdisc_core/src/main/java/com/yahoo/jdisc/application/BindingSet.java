@@ -4,9 +4,12 @@ package com.yahoo.jdisc.application;
 import com.google.common.collect.ImmutableList;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -22,10 +25,12 @@ import java.util.Map;
 public class BindingSet<T> implements Iterable<Map.Entry<UriPattern, T>>  {
 
     public static final String DEFAULT = "default";
-    private final Collection<Map.Entry<UriPattern, T>> bindings;
+    private final List<Map.Entry<UriPattern, T>> bindings;
+    private final PathIndex index;
 
     BindingSet(Collection<Map.Entry<UriPattern, T>> bindings) {
         this.bindings = sort(bindings);
+        this.index = new PathIndex(this.bindings);
     }
 
     /**
@@ -37,7 +42,8 @@ public class BindingSet<T> implements Iterable<Map.Entry<UriPattern, T>>  {
      * @return A {@link BindingMatch} object describing the match found, or null if not found.
      */
     public BindingMatch<T> match(URI uri) {
-        for (Map.Entry<UriPattern, T> entry : bindings) {
+        for (int candidate : index.candidates(uri)) {
+            Map.Entry<UriPattern, T> entry = bindings.get(candidate);
             UriPattern pattern = entry.getKey();
             UriPattern.Match match = pattern.match(uri);
             if (match != null) {
@@ -71,7 +77,7 @@ public class BindingSet<T> implements Iterable<Map.Entry<UriPattern, T>>  {
         return bindings.iterator();
     }
 
-    private static <T> Collection<Map.Entry<UriPattern, T>> sort(Collection<Map.Entry<UriPattern, T>> unsorted) {
+    private static <T> List<Map.Entry<UriPattern, T>> sort(Collection<Map.Entry<UriPattern, T>> unsorted) {
         List<Map.Entry<UriPattern, T>> ret = new LinkedList<>(unsorted);
         Collections.sort(ret, new Comparator<Map.Entry<UriPattern, ?>>() {
 
@@ -82,4 +88,65 @@ public class BindingSet<T> implements Iterable<Map.Entry<UriPattern, T>>  {
         });
         return ImmutableList.copyOf(ret);
     }
+
+    /**
+     * <p>An index of the bindings by the path segments which precede the first wildcard of their path pattern. Looking
+     * up a URI path returns the indices, in priority order, of just those bindings whose leading path segments are a
+     * prefix of the path, which is a superset of the bindings which may match it. Each candidate must still be matched
+     * in full, so this does not change which binding is resolved.</p>
+     */
+    private static class PathIndex {
+
+        private static final int[] NONE = new int[0];
+        private int[] bindings = NONE;
+        private final Map<String, PathIndex> children = new HashMap<>();
+
+        /** Creates the root of an index of the given sorted bindings */
+        PathIndex(List<? extends Map.Entry<UriPattern, ?>> sortedBindings) {
+            for (int i = 0; i < sortedBindings.size(); ++i) {
+                PathIndex node = this;
+                String prefix = sortedBindings.get(i).getKey().pathPrefix();
+                for (int start = 0, end; (end = prefix.indexOf('/', start)) >= 0; start = end + 1) {
+                    node = node.children.computeIfAbsent(prefix.substring(start, end), segment -> new PathIndex());
+                }
+                node.bindings = Arrays.copyOf(node.bindings, node.bindings.length + 1);
+                node.bindings[node.bindings.length - 1] = i;
+            }
+        }
+
+        private PathIndex() {
+        }
+
+        /** Returns the indices of the bindings which may match the given URI, in increasing order */
+        int[] candidates(URI uri) {
+            String path = uri.getPath();
+            if (path == null) {
+                path = "";
+            }
+            List<int[]> found = new ArrayList<>();
+            int size = 0;
+            PathIndex node = this;
+            for (int start = path.startsWith("/") ? 1 : 0, end; node != null; start = end + 1) {
+                if (node.bindings.length > 0) {
+                    found.add(node.bindings);
+                    size += node.bindings.length;
+                }
+                if ((end = path.indexOf('/', start)) < 0) {
+                    break;
+                }
+                node = node.children.get(path.substring(start, end));
+            }
+            if (found.size() == 1) {
+                return found.get(0);
+            }
+            int[] ret = new int[size];
+            int pos = 0;
+            for (int[] bindings : found) {
+                System.arraycopy(bindings, 0, ret, pos, bindings.length);
+                pos += bindings.length;
+            }
+            Arrays.sort(ret);
+            return ret;
+        }
+    }
 }
@@ -52,6 +52,11 @@ class GlobPattern implements Comparable<GlobPattern> {
         return false;
     }
 
+    /** Returns the text preceding the first wildcard of this, which any matching text must start with */
+    String prefix() {
+        return parts.length == 0 ? "" : parts[0];
+    }
+
     @Override
     public int compareTo(GlobPattern rhs) {
         // wildcard pattern always orders last
@@ -102,6 +102,14 @@ public class UriPattern implements Comparable<UriPattern> {
         return new Match(schemeMatch, hostMatch, port > 0 ? 0 : uri.getPort(), pathMatch);
     }
 
+    /**
+     * Returns the text which the path of any matching URI must start with, after the leading '/'.
+     * Used to index patterns by path.
+     */
+    String pathPrefix() {
+        return path.prefix();
+    }
+
     @Override
     public int hashCode() {
         return pattern.hashCode();
@@ -503,4 +503,48 @@ public class BindingSetTestCase {
         }
         assertFalse(it.hasNext());
     }
+
+    @Test
+    public void requireThatIndexedMatchingEqualsMatchingAllPatternsInOrder() {
+        String[] schemes = { "http", "https", "*" };
+        String[] hosts = { "host", "*", "*.host" };
+        String[] ports = { "", ":80", ":*" };
+        String[] paths = { "", "*", "foo", "foo/", "foo/*", "foo*", "foo/bar", "foo/bar/*", "foo/b*r", "*/bar", "f*/bar/*",
+                           "foo//bar", "bar/foo/baz", "bar/*/baz" };
+        Map<UriPattern, String> targets = new LinkedHashMap<>();
+        for (String scheme : schemes)
+            for (String host : hosts)
+                for (String port : ports)
+                    for (String path : paths)
+                        targets.put(new UriPattern(scheme + "://" + host + port + "/" + path), path);
+        BindingSet<String> bindings = new BindingSet<>(targets.entrySet());
+
+        for (String scheme : new String[] { "http", "https", "ftp" })
+            for (String host : new String[] { "host", "a.host", "other" })
+                for (String port : new String[] { "", ":80", ":8080" })
+                    for (String path : new String[] { "", "/", "/foo", "/foo/", "/foo/bar", "/foo/bar/", "/foo/bar/baz",
+                                                      "/foo/bor", "/fo/bar/x", "/foo//bar", "/bar/foo/baz",
+                                                      "/bar/x/baz", "/baz" }) {
+                        URI uri = URI.create(scheme + "://" + host + port + path);
+                        BindingMatch<String> expected = null;
+                        for (Map.Entry<UriPattern, String> entry : bindings) {
+                            UriPattern.Match match = entry.getKey().match(uri);
+                            if (match != null) {
+                                expected = new BindingMatch<>(match, entry.getValue(), entry.getKey());
+                                break;
+                            }
+                        }
+                        BindingMatch<String> match = bindings.match(uri);
+                        if (expected == null) {
+                            assertNull(uri.toString(), match);
+                            continue;
+                        }
+                        assertNotNull(uri.toString(), match);
+                        assertEquals(uri.toString(), expected.matched(), match.matched());
+                        assertEquals(uri.toString(), expected.groupCount(), match.groupCount());
+                        for (int group = 0; group < expected.groupCount(); ++group) {
+                            assertEquals(uri.toString(), expected.group(group), match.group(group));
+                        }
+                    }
+    }
 }
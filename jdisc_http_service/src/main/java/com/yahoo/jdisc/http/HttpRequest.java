@@ -47,7 +47,8 @@ public class HttpRequest extends Request implements ServletOrJdiscHttpRequest {
 
     public enum Version {
         HTTP_1_0("HTTP/1.0"),
-        HTTP_1_1("HTTP/1.1");
+        HTTP_1_1("HTTP/1.1"),
+        HTTP_2_0("HTTP/2.0");
 
         private final String str;
 
@@ -293,7 +294,7 @@ public class HttpRequest extends Request implements ServletOrJdiscHttpRequest {
         if (headers().containsIgnoreCase(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE)) {
             return false;
         }
-        return version == Version.HTTP_1_1;
+        return version == Version.HTTP_1_1 || version == Version.HTTP_2_0;
     }
 
     public Principal getUserPrincipal() {
@@ -1,7 +1,10 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.jdisc.http.core;
 
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.HttpConnection;
+import org.eclipse.jetty.server.Request;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -11,7 +14,22 @@ import javax.servlet.http.HttpServletRequest;
 public class HttpServletRequestUtils {
     private HttpServletRequestUtils() {}
 
-    public static HttpConnection getConnection(HttpServletRequest request) {
+    /** Returns the connection of the given request, which is a {@link HttpConnection} for HTTP/1.x requests */
+    public static Connection getConnection(HttpServletRequest request) {
+        HttpConnection connection = getHttp1Connection(request);
+        if (connection != null) return connection;
+        return Request.getBaseRequest(request).getHttpChannel().getEndPoint().getConnection();
+    }
+
+    /** Returns the connector which accepted the connection of the given request */
+    public static Connector getConnector(HttpServletRequest request) {
+        HttpConnection connection = getHttp1Connection(request);
+        if (connection != null) return connection.getConnector();
+        return Request.getBaseRequest(request).getHttpChannel().getConnector();
+    }
+
+    /** Returns the HTTP/1.x connection of the given request, or null if it is received over a different protocol */
+    private static HttpConnection getHttp1Connection(HttpServletRequest request) {
         return (HttpConnection)request.getAttribute("org.eclipse.jetty.server.HttpConnection");
     }
 
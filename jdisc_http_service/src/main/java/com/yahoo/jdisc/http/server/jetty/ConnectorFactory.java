@@ -6,7 +6,11 @@ import com.yahoo.jdisc.Metric;
 import com.yahoo.jdisc.http.ConnectorConfig;
 import com.yahoo.jdisc.http.ssl.SslContextFactoryProvider;
 import com.yahoo.security.tls.TransportSecurityUtils;
+import org.eclipse.jetty.alpn.java.server.JDK9ServerALPNProcessor;
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
 import org.eclipse.jetty.server.ConnectionFactory;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
@@ -18,6 +22,7 @@ import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 
 import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -26,6 +31,9 @@ import java.util.List;
  */
 public class ConnectorFactory {
 
+    private static final String HTTP2_PROTOCOL = "h2";
+    private static final String ALPN_PROTOCOL = "alpn";
+
     private final ConnectorConfig connectorConfig;
     private final SslContextFactoryProvider sslContextFactoryProvider;
 
@@ -52,28 +60,50 @@ public class ConnectorFactory {
     }
 
     private List<ConnectionFactory> createConnectionFactories() {
-        HttpConnectionFactory httpConnectionFactory = newHttpConnectionFactory();
+        HttpConfiguration httpConfiguration = newHttpConfiguration();
+        HttpConnectionFactory httpConnectionFactory = new HttpConnectionFactory(httpConfiguration);
         if (connectorConfig.healthCheckProxy().enable()) {
             return List.of(httpConnectionFactory);
         } else if (connectorConfig.ssl().enabled()) {
-            return List.of(newSslConnectionFactory(), httpConnectionFactory);
+            return sslConnectionFactories(newSslConnectionFactory(), httpConfiguration, httpConnectionFactory);
         } else if (TransportSecurityUtils.isTransportSecurityEnabled()) {
             SslConnectionFactory sslConnectionsFactory = newSslConnectionFactory();
             switch (TransportSecurityUtils.getInsecureMixedMode()) {
                 case TLS_CLIENT_MIXED_SERVER:
                 case PLAINTEXT_CLIENT_MIXED_SERVER:
-                    return List.of(newOptionalSslConnectionFactory(sslConnectionsFactory), sslConnectionsFactory, httpConnectionFactory);
+                    List<ConnectionFactory> factories = new ArrayList<>();
+                    factories.add(newOptionalSslConnectionFactory(sslConnectionsFactory));
+                    factories.addAll(sslConnectionFactories(sslConnectionsFactory, httpConfiguration, httpConnectionFactory));
+                    if (connectorConfig.http2().enabled()) {
+                        factories.add(newHttp2CleartextConnectionFactory(httpConfiguration));
+                    }
+                    return factories;
                 case DISABLED:
-                    return List.of(sslConnectionsFactory, httpConnectionFactory);
+                    return sslConnectionFactories(sslConnectionsFactory, httpConfiguration, httpConnectionFactory);
                 default:
                     throw new IllegalStateException();
             }
+        } else if (connectorConfig.http2().enabled()) {
+            // HTTP/1.1 connections are upgraded to h2c on the HTTP/2 connection preface or an h2c upgrade request
+            return List.of(httpConnectionFactory, newHttp2CleartextConnectionFactory(httpConfiguration));
         } else {
             return List.of(httpConnectionFactory);
         }
     }
 
-    private HttpConnectionFactory newHttpConnectionFactory() {
+    private List<ConnectionFactory> sslConnectionFactories(SslConnectionFactory sslConnectionFactory,
+                                                           HttpConfiguration httpConfiguration,
+                                                           HttpConnectionFactory httpConnectionFactory) {
+        if ( ! connectorConfig.http2().enabled()) {
+            return List.of(sslConnectionFactory, httpConnectionFactory);
+        }
+        return List.of(sslConnectionFactory,
+                       newAlpnServerConnectionFactory(),
+                       newHttp2ConnectionFactory(httpConfiguration),
+                       httpConnectionFactory);
+    }
+
+    private HttpConfiguration newHttpConfiguration() {
         HttpConfiguration httpConfig = new HttpConfiguration();
         httpConfig.setSendDateHeader(true);
         httpConfig.setSendServerVersion(false);
@@ -85,12 +115,39 @@ public class ConnectorFactory {
         if (connectorConfig.ssl().enabled() || TransportSecurityUtils.isTransportSecurityEnabled()) { // TODO Cleanup once mixed mode is gone
             httpConfig.addCustomizer(new SecureRequestCustomizer());
         }
-        return new HttpConnectionFactory(httpConfig);
+        return httpConfig;
+    }
+
+    private HTTP2ServerConnectionFactory newHttp2ConnectionFactory(HttpConfiguration httpConfiguration) {
+        HTTP2ServerConnectionFactory factory = new HTTP2ServerConnectionFactory(httpConfiguration);
+        factory.setMaxConcurrentStreams(connectorConfig.http2().maxConcurrentStreams());
+        return factory;
+    }
+
+    private HTTP2CServerConnectionFactory newHttp2CleartextConnectionFactory(HttpConfiguration httpConfiguration) {
+        HTTP2CServerConnectionFactory factory = new HTTP2CServerConnectionFactory(httpConfiguration);
+        factory.setMaxConcurrentStreams(connectorConfig.http2().maxConcurrentStreams());
+        return factory;
+    }
+
+    private ALPNServerConnectionFactory newAlpnServerConnectionFactory() {
+        // The ALPN processor is found with a service loader, which must see the bundle providing it
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try {
+            thread.setContextClassLoader(JDK9ServerALPNProcessor.class.getClassLoader());
+            ALPNServerConnectionFactory factory = new ALPNServerConnectionFactory(HTTP2_PROTOCOL, HttpVersion.HTTP_1_1.asString());
+            factory.setDefaultProtocol(HttpVersion.HTTP_1_1.asString());
+            return factory;
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
     }
 
     private SslConnectionFactory newSslConnectionFactory() {
         SslContextFactory factory = sslContextFactoryProvider.getInstance(connectorConfig.name(), connectorConfig.listenPort());
-        return new SslConnectionFactory(factory, HttpVersion.HTTP_1_1.asString());
+        String nextProtocol = connectorConfig.http2().enabled() ? ALPN_PROTOCOL : HttpVersion.HTTP_1_1.asString();
+        return new SslConnectionFactory(factory, nextProtocol);
     }
 
     private OptionalSslConnectionFactory newOptionalSslConnectionFactory(SslConnectionFactory sslConnectionsFactory) {
@@ -12,6 +12,7 @@ import com.yahoo.jdisc.handler.OverloadException;
 import com.yahoo.jdisc.handler.RequestHandler;
 import com.yahoo.jdisc.http.HttpHeaders;
 import com.yahoo.jdisc.http.HttpRequest;
+import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.server.HttpConnection;
 import org.eclipse.jetty.server.Request;
@@ -104,9 +105,12 @@ class HttpRequestDispatch {
 
     private void honourMaxKeepAliveRequests() {
         if (jDiscContext.serverConfig.maxKeepAliveRequests() > 0) {
-            HttpConnection connection = getConnection(jettyRequest);
-            if (connection.getMessagesIn() >= jDiscContext.serverConfig.maxKeepAliveRequests()) {
-                connection.getGenerator().setPersistent(false);
+            Connection connection = getConnection(jettyRequest);
+            if ( ! (connection instanceof HttpConnection)) return; // HTTP/2 connections are multiplexed and kept alive
+
+            HttpConnection http1Connection = (HttpConnection) connection;
+            if (http1Connection.getMessagesIn() >= jDiscContext.serverConfig.maxKeepAliveRequests()) {
+                http1Connection.getGenerator().setPersistent(false);
             }
         }
     }
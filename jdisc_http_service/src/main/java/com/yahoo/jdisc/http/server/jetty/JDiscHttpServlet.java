@@ -4,6 +4,7 @@ package com.yahoo.jdisc.http.server.jetty;
 import com.yahoo.container.logging.AccessLogEntry;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.jdisc.handler.OverloadException;
+import com.yahoo.jdisc.http.core.HttpServletRequestUtils;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -18,8 +19,6 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static com.yahoo.jdisc.http.core.HttpServletRequestUtils.getConnection;
-
 /**
  * @author Simon Thoresen Hult
  * @author bjorncs
@@ -101,7 +100,7 @@ class JDiscHttpServlet extends HttpServlet {
     }
 
     static JDiscServerConnector getConnector(HttpServletRequest request) {
-        return (JDiscServerConnector)getConnection(request).getConnector();
+        return (JDiscServerConnector)HttpServletRequestUtils.getConnector(request);
     }
 
     private void dispatchHttpRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
@@ -520,6 +520,66 @@ public class HttpServerTest {
         assertThat(driver.close(), is(true));
     }
 
+    @Test
+    public void requireThatServerCanRespondToHttp2CleartextRequest() throws Exception {
+        TestDriver driver = TestDrivers.newConfiguredInstance(
+                new ConnectedAtRequestHandler(),
+                new ServerConfig.Builder(),
+                new ConnectorConfig.Builder()
+                        .http2(new ConnectorConfig.Http2.Builder().enabled(true)));
+        java.net.http.HttpClient client = java.net.http.HttpClient.newBuilder()
+                .version(java.net.http.HttpClient.Version.HTTP_2)
+                .build();
+        URI uri = URI.create("http://localhost:" + driver.server().getListenPort() + "/status.html");
+        java.net.http.HttpResponse<String> response = sendHttp2Requests(client, uri);
+        assertThat(response.statusCode(), is(OK));
+        assertThat(response.version(), is(java.net.http.HttpClient.Version.HTTP_2));
+        assertThat(response.body(), matchesPattern("\\d{13,}"));
+        assertThat(driver.close(), is(true));
+    }
+
+    @Test
+    public void requireThatServerNegotiatesHttp2WithAlpn() throws Exception {
+        Path privateKeyFile = tmpFolder.newFile().toPath();
+        Path certificateFile = tmpFolder.newFile().toPath();
+        generatePrivateKeyAndCertificate(privateKeyFile, certificateFile);
+        TestDriver driver = TestDrivers.newConfiguredInstance(
+                new ConnectedAtRequestHandler(),
+                new ServerConfig.Builder(),
+                new ConnectorConfig.Builder()
+                        .http2(new ConnectorConfig.Http2.Builder().enabled(true))
+                        .ssl(new ConnectorConfig.Ssl.Builder()
+                                     .enabled(true)
+                                     .privateKeyFile(privateKeyFile.toString())
+                                     .certificateFile(certificateFile.toString())
+                                     .caCertificateFile(certificateFile.toString())));
+        java.net.http.HttpClient client = java.net.http.HttpClient.newBuilder()
+                .version(java.net.http.HttpClient.Version.HTTP_2)
+                .sslContext(new SslContextBuilder().withTrustStore(certificateFile).build())
+                .build();
+        URI uri = URI.create("https://localhost:" + driver.server().getListenPort() + "/status.html");
+        java.net.http.HttpResponse<String> response = sendHttp2Requests(client, uri);
+        assertThat(response.statusCode(), is(OK));
+        assertThat(response.version(), is(java.net.http.HttpClient.Version.HTTP_2));
+        assertThat(response.body(), matchesPattern("\\d{13,}"));
+        assertThat(driver.close(), is(true));
+    }
+
+    /** Sends a number of concurrent requests to the given uri, which are multiplexed on one HTTP/2 connection */
+    private static java.net.http.HttpResponse<String> sendHttp2Requests(java.net.http.HttpClient client, URI uri) throws Exception {
+        java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder(uri).build();
+        client.send(request, java.net.http.HttpResponse.BodyHandlers.ofString()); // Upgrades or negotiates the connection
+        List<java.util.concurrent.CompletableFuture<java.net.http.HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            responses.add(client.sendAsync(request, java.net.http.HttpResponse.BodyHandlers.ofString()));
+        java.net.http.HttpResponse<String> response = null;
+        for (var future : responses) {
+            response = future.get(60, TimeUnit.SECONDS);
+            assertThat(response.version(), is(java.net.http.HttpClient.Version.HTTP_2));
+        }
+        return response;
+    }
+
     @Test
     public void requireThatConnectedAtReturnsNonZero() throws Exception {
         final TestDriver driver = TestDrivers.newInstance(new ConnectedAtRequestHandler());
@@ -5,6 +5,11 @@ package com.yahoo.jrt;
 import java.nio.ByteBuffer;
 
 
+/**
+ * A growable byte buffer which alternates between being written to and read from.
+ * Buffers of the sizes pooled by the {@link BufferPool} are direct and taken from
+ * and returned to the shared pool as this grows and shrinks.
+ **/
 class Buffer {
 
     static final int MAX_IO = 65000;
@@ -58,18 +63,28 @@ class Buffer {
             if (buf.capacity() + free < minFree) {
                 size = buf.capacity() + minFree;
             }
-            ByteBuffer tmp = ByteBuffer.allocate(size);
+            if (buf.isDirect()) {
+                size = BufferPool.pooledSizeOf(size);
+            }
+            ByteBuffer tmp = allocate(size);
             tmp.order(buf.order());
             buf.position(readPos);
             buf.limit(writePos);
             tmp.put(buf);
+            BufferPool.shared().release(buf);
             buf = tmp;
             readPos = 0;
         }
     }
 
+    private static ByteBuffer allocate(int size) {
+        return BufferPool.isPooledSize(size)
+            ? BufferPool.shared().acquire(size)
+            : ByteBuffer.allocate(size);
+    }
+
     public Buffer(int size) {
-        buf = ByteBuffer.allocate(size);
+        buf = allocate(size);
         readPos = 0;
         writePos = 0;
         readMode = false;
@@ -82,11 +97,12 @@ class Buffer {
         if (used > size || buf.capacity() <= size) {
             return false;
         }
-        ByteBuffer tmp = ByteBuffer.allocate(size);
+        ByteBuffer tmp = allocate(size);
         tmp.order(buf.order());
         buf.position(rpos);
         buf.limit(wpos);
         tmp.put(buf);
+        BufferPool.shared().release(buf);
         buf = tmp;
         readPos = 0;
         writePos = used;
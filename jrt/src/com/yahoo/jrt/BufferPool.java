@@ -0,0 +1,88 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A pool of direct byte buffers of power of two sizes, used as backing storage for {@link Buffer}.
+ *
+ * Direct buffers let socket reads and writes go straight to the buffer instead of through a
+ * temporary direct copy made by the JDK, but they are expensive to allocate and are only freed
+ * by the garbage collector. Connections frequently grow and shrink their buffers, so the
+ * released buffers are kept here for reuse. The memory held by each size class is bounded.
+ *
+ * This class is multithread safe.
+ **/
+class BufferPool {
+
+    static final int MIN_SIZE = 4096;
+    static final int MAX_SIZE = 1024 * 1024;
+    private static final int MAX_BYTES_PER_SIZE = 4 * MAX_SIZE;
+
+    private static final BufferPool shared = new BufferPool();
+
+    private final List<BlockingQueue<ByteBuffer>> free = new ArrayList<>();
+
+    BufferPool() {
+        for (int size = MIN_SIZE; size <= MAX_SIZE; size *= 2) {
+            free.add(new ArrayBlockingQueue<>(MAX_BYTES_PER_SIZE / size));
+        }
+    }
+
+    /** Returns the pool shared by all buffers in this process */
+    static BufferPool shared() { return shared; }
+
+    /** Returns whether buffers of the given size are pooled */
+    static boolean isPooledSize(int size) {
+        return size >= MIN_SIZE && size <= MAX_SIZE && Integer.bitCount(size) == 1;
+    }
+
+    /** Returns the smallest pooled size of at least the given size, or the given size if it is too large to pool */
+    static int pooledSizeOf(int size) {
+        if (size <= MIN_SIZE) return MIN_SIZE;
+        if (size > MAX_SIZE) return size;
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+
+    private static int indexOf(int size) {
+        return Integer.numberOfTrailingZeros(size) - Integer.numberOfTrailingZeros(MIN_SIZE);
+    }
+
+    /**
+     * Returns a cleared big endian buffer with the given capacity,
+     * which must be a pooled size, as given by {@link #isPooledSize}.
+     **/
+    ByteBuffer acquire(int size) {
+        if ( ! isPooledSize(size)) {
+            throw new IllegalArgumentException("Buffers of size " + size + " are not pooled");
+        }
+        ByteBuffer buf = free.get(indexOf(size)).poll();
+        if (buf == null) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        buf.clear();
+        buf.order(ByteOrder.BIG_ENDIAN);
+        return buf;
+    }
+
+    /**
+     * Returns the given buffer to this pool if it was acquired from it and there is room for it.
+     * The buffer must not be used by the caller after this.
+     **/
+    void release(ByteBuffer buf) {
+        if (buf.isDirect() && isPooledSize(buf.capacity())) {
+            free.get(indexOf(buf.capacity())).offer(buf);
+        }
+    }
+
+    /** Returns the number of buffers of the given size available for reuse */
+    int available(int size) {
+        return free.get(indexOf(size)).size();
+    }
+
+}
@@ -6,8 +6,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
-import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
@@ -36,7 +36,7 @@ class Connection extends Target {
     private final Buffer output  = new Buffer(WRITE_SIZE * 2);
     private int maxInputSize  = 64*1024;
     private int maxOutputSize = 64*1024;
-    private final Map<Integer, ReplyHandler> replyMap = new HashMap<>();
+    private final ReplyMap replyMap = new ReplyMap(); // guarded by itself, taken after this when both are needed
     private final Map<TargetWatcher, TargetWatcher> watchers = new IdentityHashMap<>();
     private int activeReqs = 0;
     private int writeWork  = 0;
@@ -75,7 +75,12 @@ class Connection extends Target {
             owner.sessionLive(this);
         }
         if (down) {
-            for (ReplyHandler rh : replyMap.values()) {
+            parent.connectionClosed();
+            List<ReplyHandler> handlers;
+            synchronized (replyMap) {
+                handlers = replyMap.handlers();
+            }
+            for (ReplyHandler rh : handlers) {
                 rh.handleConnectionDown();
             }
             for (TargetWatcher watcher : watchers.values()) {
@@ -93,6 +98,7 @@ class Connection extends Target {
 
         this.parent = parent;
         this.owner = owner;
+        parent.connectionCreated();
         this.socket = parent.transport().createServerCryptoSocket(channel);
         this.spec = null;
         server = true;
@@ -103,6 +109,7 @@ class Connection extends Target {
         super(context);
         this.parent = parent;
         this.owner = owner;
+        parent.connectionCreated();
         this.spec = spec;
         server = false;
         owner.sessionInit(this);
@@ -131,12 +138,14 @@ class Connection extends Target {
         if (state == CLOSED) {
             return false;
         }
-        ReplyHandler stored = replyMap.remove(handler.key());
-        if (stored != handler) {
-            if (stored != null) {
-                replyMap.put(handler.key(), stored);
+        synchronized (replyMap) {
+            ReplyHandler stored = replyMap.remove(handler.key());
+            if (stored != handler) {
+                if (stored != null) {
+                    replyMap.put(handler.key(), stored);
+                }
+                return false;
             }
-            return false;
         }
         return true;
     }
@@ -151,7 +160,9 @@ class Connection extends Target {
                 writeWork++;
                 accepted = true;
                 if (handler != null) {
-                    replyMap.put(handler.key(), handler);
+                    synchronized (replyMap) {
+                        replyMap.put(handler.key(), handler);
+                    }
                 }
             }
         }
@@ -280,7 +291,7 @@ class Connection extends Target {
                 throw new IOException("jrt: decode error", e);
             }
             ReplyHandler handler;
-            synchronized (this) {
+            synchronized (replyMap) {
                 handler = replyMap.remove(packet.requestId());
             }
             if (handler != null) {
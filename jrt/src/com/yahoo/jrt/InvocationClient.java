@@ -8,7 +8,7 @@ class InvocationClient implements ReplyHandler, Runnable {
     Request       req;
     double        timeout;
     RequestWaiter reqWaiter;
-    Integer       replyKey;
+    int           replyKey;
     Task          timeoutTask;
 
     public InvocationClient(Connection conn, Request req,
@@ -26,7 +26,7 @@ class InvocationClient implements ReplyHandler, Runnable {
 
     public void invoke() {
         if (!conn.postPacket(new RequestPacket(0,
-                                               replyKey.intValue(),
+                                               replyKey,
                                                req.methodName(),
                                                req.parameters()), this)) {
             req.setError(ErrorCode.CONNECTION, "Connection error");
@@ -36,7 +36,7 @@ class InvocationClient implements ReplyHandler, Runnable {
         timeoutTask.schedule(timeout);
     }
 
-    public Integer key() {
+    public int key() {
         return replyKey;
     }
 
@@ -3,7 +3,7 @@ package com.yahoo.jrt;
 
 
 interface ReplyHandler {
-    public Integer key();
+    public int key();
     public void handleReply(Packet packet);
     public void handleConnectionDown();
 }
@@ -0,0 +1,114 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A map from request id to the handler of the reply, using open addressing with
+ * linear probing on primitive int keys to avoid boxing and per entry allocation.
+ *
+ * This class is not thread safe.
+ **/
+class ReplyMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private ReplyHandler[] handlers = new ReplyHandler[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private static int hash(int key) {
+        int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(int key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (handlers[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        ReplyHandler[] oldHandlers = handlers;
+        keys = new int[oldKeys.length * 2];
+        handlers = new ReplyHandler[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHandlers[i] != null) {
+                int j = indexOf(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                handlers[j] = oldHandlers[i];
+            }
+        }
+    }
+
+    /**
+     * Add a handler for the given key, replacing any previous one.
+     *
+     * @return the previous handler for the key, or null if none
+     **/
+    public ReplyHandler put(int key, ReplyHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("handler cannot be null");
+        }
+        int i = indexOf(key);
+        ReplyHandler prev = handlers[i];
+        keys[i] = key;
+        handlers[i] = handler;
+        if (prev == null && ++size * 4 > keys.length * 3) {
+            grow();
+        }
+        return prev;
+    }
+
+    /**
+     * Remove the handler for the given key.
+     *
+     * @return the removed handler, or null if none
+     **/
+    public ReplyHandler remove(int key) {
+        int mask = keys.length - 1;
+        int i = indexOf(key);
+        ReplyHandler removed = handlers[i];
+        if (removed == null) {
+            return null;
+        }
+        // shift following entries of the probe sequence back into the hole
+        int hole = i;
+        for (int j = (i + 1) & mask; handlers[j] != null; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                handlers[hole] = handlers[j];
+                hole = j;
+            }
+        }
+        handlers[hole] = null;
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Obtain a copy of all handlers in this map.
+     *
+     * @return the handlers in this map
+     **/
+    public List<ReplyHandler> handlers() {
+        List<ReplyHandler> list = new ArrayList<>(size);
+        for (ReplyHandler handler : handlers) {
+            if (handler != null) {
+                list.add(handler);
+            }
+        }
+        return list;
+    }
+
+}
@@ -5,7 +5,6 @@ package com.yahoo.jrt;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -29,7 +28,7 @@ public class Transport {
 
     private final TransportMetrics metrics = TransportMetrics.getInstance();
     private final ArrayList<TransportThread> threads = new ArrayList<TransportThread>();
-    private final Random rnd = new Random();
+    private final AtomicInteger nextThread = new AtomicInteger(0);
 
     /**
      * Create a new Transport object with the given fatal error
@@ -59,12 +58,21 @@ public class Transport {
     public Transport() { this(null, CryptoEngine.createDefault(), 1); }
 
     /**
-     * Select a random transport thread
+     * Select the transport thread with the fewest open
+     * connections. Ties are broken round-robin.
      *
-     * @return a random transport thread
+     * @return the least loaded transport thread
      **/
     public TransportThread selectThread() {
-        return threads.get(rnd.nextInt(threads.size()));
+        int start = Math.floorMod(nextThread.getAndIncrement(), threads.size());
+        TransportThread selected = threads.get(start);
+        for (int i = 1; i < threads.size(); i++) {
+            TransportThread candidate = threads.get((start + i) % threads.size());
+            if (candidate.connectionCount() < selected.connectionCount()) {
+                selected = candidate;
+            }
+        }
+        return selected;
     }
 
     /**
@@ -7,6 +7,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -77,6 +78,7 @@ public class TransportThread {
     private final Scheduler scheduler;
     private int             state;
     private final Selector  selector;
+    private final AtomicInteger connections = new AtomicInteger(0);
 
     private void handleAddConnection(Connection conn) {
         if (conn.isClosed()) {
@@ -187,6 +189,24 @@ public class TransportThread {
         return parent;
     }
 
+    /**
+     * Obtain the number of connections created for this
+     * TransportThread that are not yet closed.
+     *
+     * @return the number of open connections
+     **/
+    int connectionCount() {
+        return connections.get();
+    }
+
+    void connectionCreated() {
+        connections.incrementAndGet();
+    }
+
+    void connectionClosed() {
+        connections.decrementAndGet();
+    }
+
     /**
      * Proxy method used to dispatch fatal errors to the enclosing
      * Transport.
@@ -278,4 +278,41 @@ public class BufferTest {
         }
     }
 
+    @org.junit.Test
+    public void testPooledSizesAreDirectAndStayPooledWhenGrowing() {
+        Buffer buf = new Buffer(8192);
+        assertTrue(buf.getWritable(1).isDirect());
+        ByteBuffer b = buf.getWritable(10000);
+        assertTrue(b.isDirect());
+        assertEquals(16384, b.capacity());
+        b.put((byte)42);
+        assertTrue(buf.shrink(4096));
+        b = buf.getReadable();
+        assertTrue(b.isDirect());
+        assertEquals(4096, b.capacity());
+        assertEquals(42, b.get());
+        assertFalse(new Buffer(500).getWritable(1).isDirect());
+    }
+
+    @org.junit.Test
+    public void testBufferPoolReusesReleasedBuffers() {
+        BufferPool pool = new BufferPool();
+        assertEquals(4096, BufferPool.pooledSizeOf(10));
+        assertEquals(65536, BufferPool.pooledSizeOf(65536));
+        assertEquals(131072, BufferPool.pooledSizeOf(65537));
+        assertEquals(BufferPool.MAX_SIZE + 1, BufferPool.pooledSizeOf(BufferPool.MAX_SIZE + 1));
+
+        ByteBuffer first = pool.acquire(65536);
+        first.put((byte)1).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        pool.release(first);
+        pool.release(ByteBuffer.allocate(65536));
+        assertEquals(1, pool.available(65536));
+        ByteBuffer second = pool.acquire(65536);
+        assertTrue(first == second);
+        assertEquals(0, second.position());
+        assertEquals(65536, second.limit());
+        assertEquals(java.nio.ByteOrder.BIG_ENDIAN, second.order());
+        assertEquals(0, pool.available(65536));
+    }
+
 }
@@ -0,0 +1,63 @@
+// Copyright 2020 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ReplyMapTest {
+
+    private static class Handler implements ReplyHandler {
+        private final int key;
+        Handler(int key) { this.key = key; }
+        public int key() { return key; }
+        public void handleReply(Packet packet) {}
+        public void handleConnectionDown() {}
+    }
+
+    @org.junit.Test
+    public void testPutAndRemove() {
+        ReplyMap map = new ReplyMap();
+        Handler h0 = new Handler(0);
+        Handler h1 = new Handler(1);
+        assertNull(map.remove(0));
+        assertNull(map.put(0, h0));
+        assertNull(map.put(1, h1));
+        assertEquals(2, map.size());
+        assertSame(h0, map.put(0, h0));
+        assertEquals(2, map.size());
+        assertSame(h0, map.remove(0));
+        assertNull(map.remove(0));
+        assertSame(h1, map.remove(1));
+        assertEquals(0, map.size());
+        assertEquals(0, map.handlers().size());
+    }
+
+    @org.junit.Test
+    public void testRandomOperationsMatchHashMap() {
+        Random random = new Random(42);
+        ReplyMap map = new ReplyMap();
+        Map<Integer, ReplyHandler> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(2000) * (random.nextBoolean() ? 2 : 1 << 20);
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(key), map.remove(key));
+            } else {
+                Handler handler = new Handler(key);
+                assertSame(expected.put(key, handler), map.put(key, handler));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.handlers()));
+        for (Map.Entry<Integer, ReplyHandler> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), map.remove(entry.getKey()));
+        }
+        assertEquals(0, map.size());
+    }
+
+}
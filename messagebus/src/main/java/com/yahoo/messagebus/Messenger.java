@@ -16,6 +16,10 @@ import java.util.logging.Logger;
  * tasks. Tasks are enqueued using the synchronized {@link #enqueue(Task)}
  * method, and are run in the order they were enqueued.</p>
  *
+ * <p>Messages and replies are not dispatched through this thread; {@link
+ * #deliverMessage(Message, MessageHandler)} and {@link #deliverReply(Reply,
+ * ReplyHandler)} invoke the handler directly in the calling thread.</p>
+ *
  * @author Simon Thoresen Hult
  */
 public class Messenger implements Runnable {
@@ -54,9 +58,8 @@ public class Messenger implements Runnable {
     }
 
     /**
-     * <p>Convenience method to post a {@link Task} that delivers a {@link
-     * Message} to a {@link MessageHandler} to the queue of tasks to be
-     * executed.</p>
+     * <p>Delivers a {@link Message} to a {@link MessageHandler} in the calling
+     * thread, or discards it if this has been destroyed.</p>
      *
      * @param msg     The message to send.
      * @param handler The handler to send to.
@@ -70,9 +73,8 @@ public class Messenger implements Runnable {
     }
 
     /**
-     * <p>Convenience method to post a {@link Task} that delivers a {@link
-     * Reply} to a {@link ReplyHandler} to the queue of tasks to be
-     * executed.</p>
+     * <p>Delivers a {@link Reply} to a {@link ReplyHandler} in the calling
+     * thread, or discards it if this has been destroyed.</p>
      *
      * @param reply   The reply to return.
      * @param handler The handler to return to.
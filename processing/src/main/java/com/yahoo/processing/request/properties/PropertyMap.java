@@ -11,7 +11,8 @@ import java.util.Map;
  * A HashMap backing of Properties.
  * <p>
  * When this is cloned it will deep copy not only the model object map, but also each
- * clonable member inside the map.
+ * clonable member inside the map. If there are no such members the map is instead shared with the clone
+ * until either is written to.
  * <p>
  * Subclassing is supported, a hook can be implemented to provide conditional inclusion in the map.
  * By default - all properties are accepted, so set is never propagated.
@@ -27,9 +28,12 @@ public class PropertyMap extends Properties {
      */
     private Map<CompoundName, Object> properties = new HashMap<>();
 
+    /** Whether the properties of this may be shared with clones and must be copied before writing */
+    private boolean shared = false;
+
     public void set(CompoundName name, Object value, Map<String, String> context) {
         if (shouldSet(name, value))
-            properties.put(name, value);
+            writableProperties().put(name, value);
         else
             super.set(name, value, context);
     }
@@ -54,10 +58,32 @@ public class PropertyMap extends Properties {
     @Override
     PropertyMap clone() {
         PropertyMap clone = (PropertyMap) super.clone();
-        clone.properties = cloneMap(this.properties);
+        if (hasCloneableValues(properties)) {
+            clone.properties = cloneMap(this.properties);
+            clone.shared = false;
+        }
+        else {
+            this.shared = true;
+            clone.shared = true;
+        }
         return clone;
     }
 
+    private Map<CompoundName, Object> writableProperties() {
+        if (shared) {
+            properties = new HashMap<>(properties);
+            shared = false;
+        }
+        return properties;
+    }
+
+    /** Returns whether any values in the given map must be deep copied when it is cloned */
+    private static boolean hasCloneableValues(Map<CompoundName, Object> map) {
+        for (Object value : map.values())
+            if (value instanceof Cloneable) return true;
+        return false;
+    }
+
     @Override
     public Map<String, Object> listProperties(CompoundName path, Map<String, String> context, Properties substitution) {
         Map<String, Object> map = super.listProperties(path, context, substitution);
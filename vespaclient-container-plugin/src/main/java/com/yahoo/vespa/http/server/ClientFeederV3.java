@@ -24,8 +24,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
@@ -39,11 +45,17 @@ import static com.yahoo.messagebus.ErrorCode.SEND_QUEUE_FULL;
  * avoid using a threadpool that has no effect with all the extra that comes with it. V2 has one instance per thread
  * on the client, while this is one instance for all threads.
  *
+ * Operations are read from the request stream by the request thread, parsed by the given parser executor,
+ * and sent in the order they were read, such that parsing of several operations can proceed in parallel
+ * while the request thread reads and sends.
+ *
  * @author dybis
  */
 class ClientFeederV3 {
 
     protected static final Logger log = Logger.getLogger(ClientFeederV3.class.getName());
+    /** The max number of operations read from a request which may be parsed but not yet sent */
+    private static final int maxOperationsInParsing = Math.max(2, Runtime.getRuntime().availableProcessors());
     // This is for all clients on this gateway, for load balancing from client.
     private final static AtomicInteger outstandingOperations = new AtomicInteger(0);
     private final BlockingQueue<OperationStatus> feedReplies = new LinkedBlockingQueue<>();
@@ -59,6 +71,7 @@ class ClientFeederV3 {
     private final AtomicInteger ongoingRequests = new AtomicInteger(0);
     private String hostName;
     private AtomicInteger threadsAvailableForFeeding;
+    private final Executor parser;
 
     ClientFeederV3(
             ReferencedResource<SharedSourceSession> sourceSession,
@@ -68,6 +81,20 @@ class ClientFeederV3 {
             Metric metric,
             ReplyHandler feedReplyHandler,
             AtomicInteger threadsAvailableForFeeding) {
+        this(sourceSession, feedReaderFactory, docTypeManager, clientId, metric, feedReplyHandler,
+             threadsAvailableForFeeding, Runnable::run);
+    }
+
+    ClientFeederV3(
+            ReferencedResource<SharedSourceSession> sourceSession,
+            FeedReaderFactory feedReaderFactory,
+            DocumentTypeManager docTypeManager,
+            String clientId,
+            Metric metric,
+            ReplyHandler feedReplyHandler,
+            AtomicInteger threadsAvailableForFeeding,
+            Executor parser) {
+        this.parser = parser;
         this.sourceSession = sourceSession;
         this.clientId = clientId;
         this.feedReplyHandler = feedReplyHandler;
@@ -163,7 +190,8 @@ class ClientFeederV3 {
         return 429;
     }
 
-    private Optional<DocumentOperationMessageV3> pullMessageFromRequest(
+    /** Reads the next operation from the request and starts parsing it, or returns empty if there are no more */
+    private Optional<ParsingOperation> readNextOperation(
             FeederSettings settings, InputStream requestInputStream, BlockingQueue<OperationStatus> repliesFromOldMessages) {
         while (true) {
             Optional<String> operationId;
@@ -179,24 +207,28 @@ class ClientFeederV3 {
                 return Optional.empty();
             }
 
-            DocumentOperationMessageV3 message;
+            byte[] operationData;
             try {
-                message = getNextMessage(operationId.get(), requestInputStream, settings);
+                operationData = streamReaderV3.readNextOperationData(requestInputStream);
             } catch (Exception e) {
-                if (log.isLoggable(LogLevel.WARNING)) {
-                    log.log(LogLevel.WARNING, Exceptions.toMessageString(e));
-                }
-                metric.add(MetricNames.PARSE_ERROR, 1, null);
-
-                repliesFromOldMessages.add(new OperationStatus(
-                        Exceptions.toMessageString(e), operationId.get(), ErrorCode.ERROR, false, ""));
-
+                handleParseError(operationId.get(), e, repliesFromOldMessages);
                 continue;
             }
-            if (message != null)
-                setRoute(message, settings);
-            return Optional.ofNullable(message);
+            FutureTask<DocumentOperationMessageV3> message =
+                    new FutureTask<>(() -> getNextMessage(operationId.get(), operationData, settings));
+            parser.execute(message);
+            return Optional.of(new ParsingOperation(operationId.get(), message));
+        }
+    }
+
+    private void handleParseError(String operationId, Throwable e, BlockingQueue<OperationStatus> repliesFromOldMessages) {
+        if (log.isLoggable(LogLevel.WARNING)) {
+            log.log(LogLevel.WARNING, Exceptions.toMessageString(e));
         }
+        metric.add(MetricNames.PARSE_ERROR, 1, null);
+
+        repliesFromOldMessages.add(new OperationStatus(
+                Exceptions.toMessageString(e), operationId, ErrorCode.ERROR, false, ""));
     }
 
     private Result sendMessage(FeederSettings settings,
@@ -223,50 +255,81 @@ class ClientFeederV3 {
                       InputStream requestInputStream,
                       BlockingQueue<OperationStatus> repliesFromOldMessages,
                       AtomicInteger threadsAvailableForFeeding) throws InterruptedException {
-        while (true) {
-            Optional<DocumentOperationMessageV3> msg = pullMessageFromRequest(settings, requestInputStream, repliesFromOldMessages);
-
-            if (! msg.isPresent()) {
+        Deque<ParsingOperation> parsing = new ArrayDeque<>();
+        boolean endOfFeed = false;
+        while ( ! endOfFeed) {
+            Optional<ParsingOperation> operation = readNextOperation(settings, requestInputStream, repliesFromOldMessages);
+            if ( ! operation.isPresent()) {
                 break;
             }
-            setMessageParameters(msg.get(), settings);
-
-            Result result;
-            try {
-                result = sendMessage(settings, msg.get(), threadsAvailableForFeeding);
-
-            } catch  (RuntimeException e) {
-                repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(),
-                                                                 Exceptions.toMessageString(e),
-                                                                 ErrorCode.ERROR,
-                                                                 false,
-                                                                 msg.get().getMessage()));
-                continue;
+            parsing.add(operation.get());
+            while ( ! endOfFeed && parsing.size() >= maxOperationsInParsing) {
+                endOfFeed = ! sendWhenParsed(parsing.poll(), settings, repliesFromOldMessages, threadsAvailableForFeeding);
             }
+        }
+        while ( ! endOfFeed && ! parsing.isEmpty()) {
+            endOfFeed = ! sendWhenParsed(parsing.poll(), settings, repliesFromOldMessages, threadsAvailableForFeeding);
+        }
+        for (ParsingOperation operation : parsing) {
+            operation.message.cancel(false);
+        }
+    }
 
-            if (result.isAccepted()) {
-                outstandingOperations.incrementAndGet();
-                updateOpsPerSec();
-                log(LogLevel.DEBUG, "Sent message successfully, document id: ", msg.get().getOperationId());
-            } else if (!result.getError().isFatal()) {
-                repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(),
-                                                                 result.getError().getMessage(),
-                                                                 ErrorCode.TRANSIENT_ERROR,
-                                                                 false,
-                                                                 msg.get().getMessage()));
-                continue;
-            } else {
-                // should probably not happen, but everybody knows stuff that
-                // shouldn't happen, happens all the time
-                boolean isConditionNotMet = result.getError().getCode() == DocumentProtocol.ERROR_TEST_AND_SET_CONDITION_FAILED;
-                repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(),
-                                                                 result.getError().getMessage(),
-                                                                 ErrorCode.ERROR,
-                                                                 isConditionNotMet,
-                                                                 msg.get().getMessage()));
-                continue;
-            }
+    /**
+     * Sends the given operation when it is parsed.
+     *
+     * @return false if the operation marks the end of the feed, true otherwise
+     */
+    private boolean sendWhenParsed(ParsingOperation operation,
+                                   FeederSettings settings,
+                                   BlockingQueue<OperationStatus> repliesFromOldMessages,
+                                   AtomicInteger threadsAvailableForFeeding) throws InterruptedException {
+        DocumentOperationMessageV3 msg;
+        try {
+            msg = operation.message.get();
+        } catch (ExecutionException e) {
+            handleParseError(operation.operationId, e.getCause(), repliesFromOldMessages);
+            return true;
+        }
+        if (msg == null) {
+            return false;
         }
+        setRoute(msg, settings);
+        setMessageParameters(msg, settings);
+
+        Result result;
+        try {
+            result = sendMessage(settings, msg, threadsAvailableForFeeding);
+        } catch (RuntimeException e) {
+            repliesFromOldMessages.add(createOperationStatus(msg.getOperationId(),
+                                                             Exceptions.toMessageString(e),
+                                                             ErrorCode.ERROR,
+                                                             false,
+                                                             msg.getMessage()));
+            return true;
+        }
+
+        if (result.isAccepted()) {
+            outstandingOperations.incrementAndGet();
+            updateOpsPerSec();
+            log(LogLevel.DEBUG, "Sent message successfully, document id: ", msg.getOperationId());
+        } else if (!result.getError().isFatal()) {
+            repliesFromOldMessages.add(createOperationStatus(msg.getOperationId(),
+                                                             result.getError().getMessage(),
+                                                             ErrorCode.TRANSIENT_ERROR,
+                                                             false,
+                                                             msg.getMessage()));
+        } else {
+            // should probably not happen, but everybody knows stuff that
+            // shouldn't happen, happens all the time
+            boolean isConditionNotMet = result.getError().getCode() == DocumentProtocol.ERROR_TEST_AND_SET_CONDITION_FAILED;
+            repliesFromOldMessages.add(createOperationStatus(msg.getOperationId(),
+                                                             result.getError().getMessage(),
+                                                             ErrorCode.ERROR,
+                                                             isConditionNotMet,
+                                                             msg.getMessage()));
+        }
+        return true;
     }
 
     private OperationStatus createOperationStatus(String id, String message,
@@ -278,11 +341,11 @@ class ClientFeederV3 {
     }
 
     // protected for mocking
-    /** Returns the next message in the stream, or null if none */
+    /** Parses the given operation data to a message, or returns null if it marks the end of the feed */
     protected DocumentOperationMessageV3 getNextMessage(String operationId,
-                                                        InputStream requestInputStream,
+                                                        byte[] operationData,
                                                         FeederSettings settings) throws Exception {
-        FeedOperation operation = streamReaderV3.getNextOperation(requestInputStream, settings);
+        FeedOperation operation = streamReaderV3.parseOperation(operationData, settings);
 
         // This is a bit hard to set up while testing, so we accept that things are not perfect.
         if (sourceSession.getResource().session() != null) {
@@ -356,4 +419,17 @@ class ClientFeederV3 {
         }
     }
 
+    /** An operation read from a request, and the result of parsing it */
+    private static class ParsingOperation {
+
+        final String operationId;
+        final Future<DocumentOperationMessageV3> message;
+
+        ParsingOperation(String operationId, Future<DocumentOperationMessageV3> message) {
+            this.operationId = operationId;
+            this.message = message;
+        }
+
+    }
+
 }
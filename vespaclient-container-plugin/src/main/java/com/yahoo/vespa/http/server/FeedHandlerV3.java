@@ -22,6 +22,8 @@ import com.yahoo.yolean.Exceptions;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -39,6 +41,7 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
     private DocumentTypeManager docTypeManager;
     private final Map<String, ClientFeederV3> clientFeederByClientId = new HashMap<>();
     private final ScheduledThreadPoolExecutor cron;
+    private final ExecutorService parser;
     private final SessionCache sessionCache;
     protected final ReplyHandler feedReplyHandler;
     private final Metric metric;
@@ -57,6 +60,8 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
         feedReplyHandler = new FeedReplyReader(parentCtx.getMetric(), metricsHelper);
         cron = new ScheduledThreadPoolExecutor(1, ThreadFactoryFactory.getThreadFactory("feedhandlerv3.cron"));
         cron.scheduleWithFixedDelay(this::removeOldClients, 16, 11, TimeUnit.MINUTES);
+        parser = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                                              ThreadFactoryFactory.getDaemonThreadFactory("feedhandlerv3.parser"));
         this.metric = parentCtx.getMetric();
         // 40% of the threads can be blocking on feeding before we deny requests.
         if (threadpoolConfig != null) {
@@ -87,7 +92,8 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
                                                               clientId,
                                                               metric,
                                                               feedReplyHandler,
-                                                              threadsAvailableForFeeding));
+                                                              threadsAvailableForFeeding,
+                                                              parser));
             }
             clientFeederV3 = clientFeederByClientId.get(clientId);
         }
@@ -123,6 +129,7 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
                 }
                 clientFeederByClientId.clear();
             }
+            parser.shutdown();
         });
         destroyer.setDaemon(true);
         destroyer.start();
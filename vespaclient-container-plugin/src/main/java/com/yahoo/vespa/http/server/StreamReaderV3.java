@@ -8,6 +8,7 @@ import com.yahoo.vespa.http.server.util.ByteLimitedInputStream;
 import com.yahoo.vespaxmlparser.FeedOperation;
 import com.yahoo.vespaxmlparser.FeedReader;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
@@ -30,16 +31,21 @@ public class StreamReaderV3 {
         this.docTypeManager = docTypeManager;
     }
 
-    public FeedOperation getNextOperation(InputStream requestInputStream, FeederSettings settings) throws Exception {
-        FeedOperation op = null;
-
+    /**
+     * Reads the data of the next operation from the stream, without parsing it, such that it can be parsed
+     * by {@link #parseOperation} in another thread while reading continues.
+     */
+    public byte[] readNextOperationData(InputStream requestInputStream) throws IOException {
         int length = readByteLength(requestInputStream);
-
-        try (InputStream limitedInputStream = new ByteLimitedInputStream(requestInputStream, length)){
-            FeedReader reader = feedReaderFactory.createReader(limitedInputStream, docTypeManager, settings.dataFormat);
-            op = reader.read();
+        try (InputStream limitedInputStream = new ByteLimitedInputStream(requestInputStream, length)) {
+            return limitedInputStream.readAllBytes();
         }
-        return op;
+    }
+
+    /** Parses operation data read by {@link #readNextOperationData} */
+    public FeedOperation parseOperation(byte[] operationData, FeederSettings settings) throws Exception {
+        FeedReader reader = feedReaderFactory.createReader(new ByteArrayInputStream(operationData), docTypeManager, settings.dataFormat);
+        return reader.read();
     }
 
     public Optional<String> getNextOperationId(InputStream requestInputStream) throws IOException {
@@ -31,6 +31,7 @@ import org.mockito.stubbing.Answer;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
@@ -76,6 +77,28 @@ public class FeedTesterV3 {
         assertThat(Splitter.on("\n").splitToList(result).size(), is(101));
     }
 
+    @Test
+    public void feedManyDocumentsParsedInParallelAreSentInOrder() throws Exception {
+        final FeedHandlerV3 feedHandlerV3 = setupFeederHandler();
+        StringBuilder wireData = new StringBuilder();
+        for (int x = 0; x < 100; x++) {
+            String docData = x == 50 ? "[{\"put oops I broke it]"
+                                     : "[{\"put\": \"id:testdocument:testdocument::c" + x + "\", \"fields\": { \"title\": \"fooKey\"}}]";
+            wireData.append("123" + x + " " + Integer.toHexString(docData.length()) + "\n" + docData);
+        }
+        HttpResponse httpResponse = feedHandlerV3.handle(createRequestWithPayload(wireData.toString()));
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        httpResponse.render(outStream);
+        List<String> lines = Splitter.on("\n").omitEmptyStrings().splitToList(Utf8.toString(outStream.toByteArray()));
+        assertThat(lines.size(), is(100));
+        assertThat(lines.get(0), startsWith("12350 ERROR "));
+        for (int x = 0, line = 1; x < 100; x++) {
+            if (x == 50) continue;
+            assertThat(lines.get(line++), is("123" + x + " OK message trace"));
+        }
+        assertThat(metric.get(MetricNames.PARSE_ERROR), is(1L));
+    }
+
     private static DocumentTypeManager createDoctypeManager() {
         DocumentTypeManager docTypeManager = new DocumentTypeManager();
         DocumentType documentType = new DocumentType("testdocument");
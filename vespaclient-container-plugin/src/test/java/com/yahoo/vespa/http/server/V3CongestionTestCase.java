@@ -51,13 +51,7 @@ public class V3CongestionTestCase {
 
         @Override
         protected DocumentOperationMessageV3 getNextMessage(
-                String operationId, InputStream requestInputStream, FeederSettings settings) throws Exception {
-            while (true) {
-                int data = requestInputStream.read();
-                if (data == -1 || data == (char)'\n') {
-                    break;
-                }
-            }
+                String operationId, byte[] operationData, FeederSettings settings) throws Exception {
             return docOp;
         }
     }
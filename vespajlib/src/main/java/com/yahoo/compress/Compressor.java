@@ -124,6 +124,29 @@ public class Compressor {
                 throw new IllegalArgumentException(compression + " is not supported");
         }
     }
+    /**
+     * Decompresses some data into the given array, such that callers may reuse a buffer across calls
+     *
+     * @param compression the compression type used
+     * @param compressedData the compressed data. This array is only read by this method.
+     * @param uncompressedSize the uncompressed size in bytes of this data
+     * @param target the array to write the uncompressed data to, from index 0. This must have room for the uncompressed data
+     * @return the number of bytes written to the target
+     * @throws IllegalArgumentException if the compression type is not supported
+     */
+    public int decompress(CompressionType compression, byte[] compressedData, int uncompressedSize, byte[] target) {
+        switch (compression) {
+            case NONE: case INCOMPRESSIBLE:
+                System.arraycopy(compressedData, 0, target, 0, compressedData.length);
+                return compressedData.length;
+            case LZ4:
+                factory.fastDecompressor().decompress(compressedData, 0, target, 0, uncompressedSize);
+                return uncompressedSize;
+            default:
+                throw new IllegalArgumentException(compression + " is not supported");
+        }
+    }
+
     /** Decompresses some data */
     public byte[] decompress(byte[] compressedData, CompressionType compressionType, int uncompressedSize) {
         return decompress(compressionType, compressedData, 0, uncompressedSize, Optional.empty());
@@ -403,6 +403,74 @@ public class GrowableByteBuffer implements Comparable<GrowableByteBuffer> {
         }
     }
 
+    //BULK VALUES:
+
+    /**
+     * Grows this buffer if necessary, such that at least the given number of bytes
+     * can be put after the current position without growing it.
+     *
+     * @param size the number of bytes to make room for
+     * @return this for convenience
+     */
+    public GrowableByteBuffer reserve(int size) {
+        accomodate(size);
+        return this;
+    }
+
+    /**
+     * Fills the given array with doubles read from the current position of this buffer,
+     * in the byte order of this, and advances the position past them.
+     *
+     * @param target the array to read into
+     * @return this for convenience
+     */
+    public GrowableByteBuffer getDoubles(double[] target) {
+        buffer.asDoubleBuffer().get(target);
+        position(position() + target.length * Double.BYTES);
+        return this;
+    }
+
+    /**
+     * Fills the given array with floats read from the current position of this buffer,
+     * in the byte order of this, and advances the position past them.
+     *
+     * @param target the array to read into
+     * @return this for convenience
+     */
+    public GrowableByteBuffer getFloats(float[] target) {
+        buffer.asFloatBuffer().get(target);
+        position(position() + target.length * Float.BYTES);
+        return this;
+    }
+
+    /**
+     * Puts the given doubles at the current position of this buffer, in the byte order of this,
+     * growing it if necessary, and advances the position past them.
+     *
+     * @param values the values to put
+     * @return this for convenience
+     */
+    public GrowableByteBuffer putDoubles(double[] values) {
+        accomodate(values.length * Double.BYTES);
+        buffer.asDoubleBuffer().put(values);
+        position(position() + values.length * Double.BYTES);
+        return this;
+    }
+
+    /**
+     * Puts the given floats at the current position of this buffer, in the byte order of this,
+     * growing it if necessary, and advances the position past them.
+     *
+     * @param values the values to put
+     * @return this for convenience
+     */
+    public GrowableByteBuffer putFloats(float[] values) {
+        accomodate(values.length * Float.BYTES);
+        buffer.asFloatBuffer().put(values);
+        position(position() + values.length * Float.BYTES);
+        return this;
+    }
+
     //METHODS OF ENCAPSULATED BYTEBUFFER:
     public static GrowableByteBuffer allocate(int capacity) {
         return new GrowableByteBuffer(ByteBuffer.allocate(capacity));
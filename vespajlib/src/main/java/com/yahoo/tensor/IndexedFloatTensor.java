@@ -1,6 +1,7 @@
 // Copyright 2019 Oath Inc. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor;
 
+import java.nio.FloatBuffer;
 import java.util.Arrays;
 
 /**
@@ -34,6 +35,9 @@ class IndexedFloatTensor extends IndexedTensor {
         return new IndexedFloatTensor(type, dimensionSizes(), values);
     }
 
+    @Override
+    public void writeValues(FloatBuffer target) { target.put(values); }
+
     @Override
     public int hashCode() { return Arrays.hashCode(values); }
 
@@ -4,6 +4,8 @@ package com.yahoo.tensor;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -134,6 +136,28 @@ public abstract class IndexedTensor implements Tensor {
      */
     public abstract float getFloat(long valueIndex);
 
+    /**
+     * Writes all the values of this in <i>standard value order</i> to the given buffer, starting at its position.
+     * Implementations copy their values in bulk where possible.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer does not have room for all the values of this
+     */
+    public void writeValues(DoubleBuffer target) {
+        for (long i = 0; i < size(); i++)
+            target.put(get(i));
+    }
+
+    /**
+     * Writes all the values of this in <i>standard value order</i> as floats to the given buffer,
+     * starting at its position. Implementations copy their values in bulk where possible.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer does not have room for all the values of this
+     */
+    public void writeValues(FloatBuffer target) {
+        for (long i = 0; i < size(); i++)
+            target.put(getFloat(i));
+    }
+
     static long toValueIndex(long[] indexes, DimensionSizes sizes) {
         if (indexes.length == 1) return indexes[0]; // for speed
         if (indexes.length == 0) return 0; // for speed
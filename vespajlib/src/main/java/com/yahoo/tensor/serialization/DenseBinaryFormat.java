@@ -57,13 +57,17 @@ public class DenseBinaryFormat implements BinaryFormat {
     }
 
     private void encodeDoubleCells(IndexedTensor tensor, GrowableByteBuffer buffer) {
-        for (int i = 0; i < tensor.size(); i++)
-            buffer.putDouble(tensor.get(i));
+        int size = (int)tensor.size() * Double.BYTES;
+        buffer.reserve(size);
+        tensor.writeValues(buffer.asDoubleBuffer());
+        buffer.position(buffer.position() + size);
     }
 
     private void encodeFloatCells(IndexedTensor tensor, GrowableByteBuffer buffer) {
-        for (int i = 0; i < tensor.size(); i++)
-            buffer.putFloat(tensor.getFloat(i));
+        int size = (int)tensor.size() * Float.BYTES;
+        buffer.reserve(size);
+        tensor.writeValues(buffer.asFloatBuffer());
+        buffer.position(buffer.position() + size);
     }
 
     @Override
@@ -86,9 +90,7 @@ public class DenseBinaryFormat implements BinaryFormat {
             type = decodeType(buffer);
             sizes = sizesFromType(type);
         }
-        Tensor.Builder builder = Tensor.Builder.of(type, sizes);
-        decodeCells(sizes, buffer, (IndexedTensor.BoundBuilder)builder);
-        return builder.build();
+        return decodeCells(type, sizes, buffer);
     }
 
     private TensorType decodeType(GrowableByteBuffer buffer) {
@@ -107,21 +109,24 @@ public class DenseBinaryFormat implements BinaryFormat {
         return builder.build();
     }
 
-    private void decodeCells(DimensionSizes sizes, GrowableByteBuffer buffer, IndexedTensor.BoundBuilder builder) {
+    private IndexedTensor decodeCells(TensorType type, DimensionSizes sizes, GrowableByteBuffer buffer) {
         switch (serializationValueType) {
-            case DOUBLE: decodeDoubleCells(sizes, builder, buffer); break;
-            case FLOAT: decodeFloatCells(sizes, builder, buffer); break;
+            case DOUBLE: return decodeDoubleCells(type, sizes, buffer);
+            case FLOAT: return decodeFloatCells(type, sizes, buffer);
+            default: throw new IllegalStateException("Unexpected value type " + serializationValueType);
         }
     }
 
-    private void decodeDoubleCells(DimensionSizes sizes, IndexedTensor.BoundBuilder builder, GrowableByteBuffer buffer) {
-        for (long i = 0; i < sizes.totalSize(); i++)
-            builder.cellByDirectIndex(i, buffer.getDouble());
+    private IndexedTensor decodeDoubleCells(TensorType type, DimensionSizes sizes, GrowableByteBuffer buffer) {
+        double[] values = new double[(int)sizes.totalSize()]; // XXX: Size truncation
+        buffer.getDoubles(values);
+        return IndexedTensor.Builder.of(type, sizes, values).build();
     }
 
-    private void decodeFloatCells(DimensionSizes sizes, IndexedTensor.BoundBuilder builder, GrowableByteBuffer buffer) {
-        for (long i = 0; i < sizes.totalSize(); i++)
-            builder.cellByDirectIndex(i, buffer.getFloat());
+    private IndexedTensor decodeFloatCells(TensorType type, DimensionSizes sizes, GrowableByteBuffer buffer) {
+        float[] values = new float[(int)sizes.totalSize()]; // XXX: Size truncation
+        buffer.getFloats(values);
+        return IndexedTensor.Builder.of(type, sizes, values).build();
     }
 
 }
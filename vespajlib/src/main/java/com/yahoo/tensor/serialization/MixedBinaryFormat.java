@@ -11,8 +11,6 @@ import com.yahoo.tensor.TensorType;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Consumer;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -61,30 +59,53 @@ class MixedBinaryFormat implements BinaryFormat {
     }
 
     private void encodeCells(GrowableByteBuffer buffer, MixedTensor tensor) {
-        switch (serializationValueType) {
-            case DOUBLE: encodeCells(buffer, tensor, buffer::putDouble); break;
-            case FLOAT: encodeCells(buffer, tensor, (val) -> buffer.putFloat(val.floatValue())); break;
-        }
-    }
-
-    private void encodeCells(GrowableByteBuffer buffer, MixedTensor tensor, Consumer<Double> consumer) {
         List<TensorType.Dimension> sparseDimensions = tensor.type().dimensions().stream().filter(d -> !d.isIndexed()).collect(Collectors.toList());
-        long denseSubspaceSize = tensor.denseSubspaceSize();
+        int[] sparseIndexes = new int[sparseDimensions.size()];
+        for (int i = 0; i < sparseIndexes.length; i++) {
+            sparseIndexes[i] = tensor.type().indexOfDimension(sparseDimensions.get(i).name()).orElseThrow(() ->
+                new IllegalStateException("Dimension not found in address."));
+        }
+        int denseSubspaceSize = (int)tensor.denseSubspaceSize();
         if (sparseDimensions.size() > 0) {
             buffer.putInt1_4Bytes((int)(tensor.size() / denseSubspaceSize));  // XXX: Size truncation
         }
+        switch (serializationValueType) {
+            case DOUBLE: encodeDoubleCells(buffer, tensor, sparseIndexes, new double[denseSubspaceSize]); break;
+            case FLOAT: encodeFloatCells(buffer, tensor, sparseIndexes, new float[denseSubspaceSize]); break;
+        }
+    }
+
+    /** Writes each dense subspace as a block, preceded by its sparse labels */
+    private void encodeDoubleCells(GrowableByteBuffer buffer, MixedTensor tensor, int[] sparseIndexes, double[] denseSubspace) {
         Iterator<Tensor.Cell> cellIterator = tensor.cellIterator();
         while (cellIterator.hasNext()) {
             Tensor.Cell cell = cellIterator.next();
-            for (TensorType.Dimension dimension : sparseDimensions) {
-                int index = tensor.type().indexOfDimension(dimension.name()).orElseThrow(() ->
-                    new IllegalStateException("Dimension not found in address."));
-                buffer.putUtf8String(cell.getKey().label(index));
+            encodeSparseAddress(buffer, cell.getKey(), sparseIndexes);
+            denseSubspace[0] = cell.getValue();
+            for (int i = 1; i < denseSubspace.length; ++i ) {
+                denseSubspace[i] = cellIterator.next().getValue();
             }
-            consumer.accept(cell.getValue());
-            for (int i = 1; i < denseSubspaceSize; ++i ) {
-                consumer.accept(cellIterator.next().getValue());
+            buffer.putDoubles(denseSubspace);
+        }
+    }
+
+    /** Writes each dense subspace as a block, preceded by its sparse labels */
+    private void encodeFloatCells(GrowableByteBuffer buffer, MixedTensor tensor, int[] sparseIndexes, float[] denseSubspace) {
+        Iterator<Tensor.Cell> cellIterator = tensor.cellIterator();
+        while (cellIterator.hasNext()) {
+            Tensor.Cell cell = cellIterator.next();
+            encodeSparseAddress(buffer, cell.getKey(), sparseIndexes);
+            denseSubspace[0] = cell.getValue().floatValue();
+            for (int i = 1; i < denseSubspace.length; ++i ) {
+                denseSubspace[i] = cellIterator.next().getValue().floatValue();
             }
+            buffer.putFloats(denseSubspace);
+        }
+    }
+
+    private void encodeSparseAddress(GrowableByteBuffer buffer, TensorAddress address, int[] sparseIndexes) {
+        for (int index : sparseIndexes) {
+            buffer.putUtf8String(address.label(index));
         }
     }
 
@@ -124,32 +145,31 @@ class MixedBinaryFormat implements BinaryFormat {
     }
 
     private void decodeCells(GrowableByteBuffer buffer, MixedTensor.BoundBuilder builder, TensorType type) {
-        switch (serializationValueType) {
-            case DOUBLE: decodeCells(buffer, builder, type, buffer::getDouble); break;
-            case FLOAT: decodeCells(buffer, builder, type, () -> (double)buffer.getFloat()); break;
-        }
-    }
-
-    private void decodeCells(GrowableByteBuffer buffer, MixedTensor.BoundBuilder builder, TensorType type, Supplier<Double> supplier) {
         List<TensorType.Dimension> sparseDimensions = type.dimensions().stream().filter(d -> !d.isIndexed()).collect(Collectors.toList());
-        TensorType sparseType = MixedTensor.createPartialType(type.valueType(), sparseDimensions);
-        long denseSubspaceSize = builder.denseSubspaceSize();
+        int denseSubspaceSize = (int)builder.denseSubspaceSize();
 
         int numBlocks = 1;
         if (sparseDimensions.size() > 0) {
             numBlocks = buffer.getInt1_4Bytes();
         }
 
-        double[] denseSubspace = new double[(int)denseSubspaceSize];
+        double[] denseSubspace = new double[denseSubspaceSize];
+        float[] floatDenseSubspace = serializationValueType == TensorType.Value.FLOAT ? new float[denseSubspaceSize] : null;
         for (int i = 0; i < numBlocks; ++i) {
-            TensorAddress.Builder sparseAddress = new TensorAddress.Builder(sparseType);
-            for (TensorType.Dimension sparseDimension : sparseDimensions) {
-                sparseAddress.add(sparseDimension.name(), buffer.getUtf8String());
+            // Sparse dimensions are sorted in the type, and so in the same order as in the sparse partial type
+            String[] labels = new String[sparseDimensions.size()];
+            for (int j = 0; j < labels.length; j++) {
+                labels[j] = buffer.getUtf8String();
+            }
+            if (floatDenseSubspace == null) {
+                buffer.getDoubles(denseSubspace);
             }
-            for (long denseOffset = 0; denseOffset < denseSubspaceSize; denseOffset++) {
-                denseSubspace[(int)denseOffset] = supplier.get();
+            else {
+                buffer.getFloats(floatDenseSubspace);
+                for (int j = 0; j < denseSubspaceSize; j++)
+                    denseSubspace[j] = floatDenseSubspace[j];
             }
-            builder.block(sparseAddress.build(), denseSubspace);
+            builder.block(TensorAddress.of(labels), denseSubspace);
         }
     }
 
@@ -10,7 +10,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
 
 /**
  * Implementation of a sparse binary format for a tensor on the form:
@@ -99,28 +98,26 @@ class SparseBinaryFormat implements BinaryFormat {
     }
 
     private void decodeCells(GrowableByteBuffer buffer, Tensor.Builder builder, TensorType type) {
-        switch (serializationValueType) {
-            case DOUBLE: decodeCells(buffer, builder, type, buffer::getDouble); break;
-            case FLOAT: decodeCells(buffer, builder, type, () -> (double)buffer.getFloat()); break;
-        }
-    }
-
-    private void decodeCells(GrowableByteBuffer buffer, Tensor.Builder builder, TensorType type, Supplier<Double> supplier) {
         long numCells = buffer.getInt1_4Bytes(); // XXX: Size truncation
         for (long i = 0; i < numCells; ++i) {
-            Tensor.Builder.CellBuilder cellBuilder = builder.cell();
-            decodeAddress(buffer, cellBuilder, type);
-            cellBuilder.value(supplier.get());
+            TensorAddress address = decodeAddress(buffer, type);
+            switch (serializationValueType) {
+                case DOUBLE: builder.cell(address, buffer.getDouble()); break;
+                case FLOAT: builder.cell(address, (double)buffer.getFloat()); break;
+            }
         }
     }
 
-    private void decodeAddress(GrowableByteBuffer buffer, Tensor.Builder.CellBuilder builder, TensorType type) {
-        for (TensorType.Dimension dimension : type.dimensions()) {
-            String label = buffer.getUtf8String();
-            if ( ! label.isEmpty()) {
-                builder.label(dimension.name(), label);
-            }
+    /** Decodes the labels of an address directly into an array in the order of the dimensions of the type */
+    private TensorAddress decodeAddress(GrowableByteBuffer buffer, TensorType type) {
+        String[] labels = new String[type.dimensions().size()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = buffer.getUtf8String();
+            if (labels[i].isEmpty())
+                throw new IllegalArgumentException("Missing a label for dimension " +
+                                                   type.dimensions().get(i).name() + " for " + type);
         }
+        return TensorAddress.of(labels);
     }
 
 }
@@ -22,4 +22,18 @@ public class LZ4CompressorTest {
         assertTrue(Arrays.equals(decompressed, Arrays.copyOf(toCompress, compressBytes)));
     }
 
+    @Test
+    public void can_decompress_into_reused_buffer() {
+        Compressor compressor = new Compressor();
+        byte[] buffer = new byte[100];
+        for (String data : new String[] { "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa", "bbbbbbbbbbbbbbbbbbbb" }) {
+            Compressor.Compression compressed = compressor.compress(CompressionType.LZ4, data.getBytes());
+            assertEquals(CompressionType.LZ4, compressed.type());
+            int size = compressor.decompress(compressed.type(), compressed.data(), compressed.uncompressedSize(), buffer);
+            assertEquals(data, new String(buffer, 0, size));
+        }
+        int size = compressor.decompress(CompressionType.NONE, "cc".getBytes(), 2, buffer);
+        assertEquals("cc", new String(buffer, 0, size));
+    }
+
 }
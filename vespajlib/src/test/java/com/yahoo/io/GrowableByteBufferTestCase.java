@@ -794,4 +794,33 @@ public class GrowableByteBufferTestCase {
         assertTrue(caught);
     }
 
+    @Test
+    public void testBulkValues() {
+        double[] doubles = { 1.5, -2.25, Double.MAX_VALUE, 0.0 };
+        float[] floats = { 3.5f, -0.125f, Float.MIN_VALUE };
+        GrowableByteBuffer bulk = new GrowableByteBuffer(4, 1.5f);
+        bulk.putInt(7);
+        bulk.putDoubles(doubles);
+        bulk.putFloats(floats);
+        assertEquals(4 + 4 * 8 + 3 * 4, bulk.position());
+
+        GrowableByteBuffer single = new GrowableByteBuffer(4, 1.5f);
+        single.putInt(7);
+        for (double value : doubles)
+            single.putDouble(value);
+        for (float value : floats)
+            single.putFloat(value);
+        assertArrayEquals(Arrays.copyOf(single.array(), single.position()), Arrays.copyOf(bulk.array(), bulk.position()));
+
+        bulk.flip();
+        assertEquals(7, bulk.getInt());
+        double[] readDoubles = new double[doubles.length];
+        bulk.getDoubles(readDoubles);
+        assertArrayEquals(doubles, readDoubles, 0.0);
+        float[] readFloats = new float[floats.length];
+        bulk.getFloats(readFloats);
+        assertArrayEquals(floats, readFloats, 0.0f);
+        assertFalse(bulk.hasRemaining());
+    }
+
 }
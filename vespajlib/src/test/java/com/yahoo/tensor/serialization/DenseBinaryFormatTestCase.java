@@ -2,13 +2,16 @@
 package com.yahoo.tensor.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Optional;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
@@ -73,6 +76,30 @@ public class DenseBinaryFormatTestCase {
         assertSerialization("tensor<float>(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
     }
 
+    @Test
+    public void testSerializationOfLargeTensors() {
+        assertLargeTensorSerialization(TensorType.fromSpec("tensor<double>(x[3],y[1000])"));
+        assertLargeTensorSerialization(TensorType.fromSpec("tensor<float>(x[3],y[1000])"));
+    }
+
+    private void assertLargeTensorSerialization(TensorType type) {
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(type);
+        ByteBuffer expectedCells = ByteBuffer.allocate(3000 * 8);
+        for (int i = 0; i < 3000; i++) {
+            double value = i * 0.5 - 100;
+            builder.cellByDirectIndex(i, value);
+            if (type.valueType() == TensorType.Value.FLOAT)
+                expectedCells.putFloat((float)value);
+            else
+                expectedCells.putDouble(value);
+        }
+        Tensor tensor = builder.build();
+        byte[] encodedTensor = TypedBinaryFormat.encode(tensor);
+        byte[] encodedCells = Arrays.copyOfRange(encodedTensor, encodedTensor.length - expectedCells.position(), encodedTensor.length);
+        assertArrayEquals(Arrays.copyOf(expectedCells.array(), expectedCells.position()), encodedCells);
+        assertSerialization(tensor);
+    }
+
     private void assertSerialization(String tensorString) {
         assertSerialization(Tensor.from(tensorString));
     }